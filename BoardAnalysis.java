@@ -0,0 +1,40 @@
+// what makes a board easy or hard to solve, and whether it has only one solution
+class BoardAnalysis {
+  // the solutions found, stopping at two
+  int solutions;
+  // the tiles whose rotation follows from the border and their neighbors alone,
+  // before any guessing
+  int forced;
+  // how many waves of looking at tiles it took for nothing more to follow,
+  // each wave looking again at the tiles the one before narrowed down
+  int waves;
+  // how many times the search had to guess a rotation to find up to two solutions
+  int guesses;
+  
+  // analyzes the given board, which is not changed
+  // throws an IllegalArgumentException if the board is not a square grid
+  BoardAnalysis(PackedBoard b) {
+    if (!(b.topology instanceof SquareGrid)) {
+      throw new IllegalArgumentException("Only square grids can be analyzed");
+    }
+    SolverState state = new SolverState(b);
+    Solutions found = new Solutions(2);
+    this.forced = 0;
+    this.waves = 0;
+    if (state.possible()) {
+      this.waves = state.propagateWaves();
+      if (waves != -1) {
+        this.forced = state.decided();
+        state.search(found, 0);
+      }
+    }
+    this.solutions = found.count;
+    this.guesses = found.guesses;
+  }
+  
+  // whether the board has exactly one solution
+  public boolean unique() {
+    return solutions == 1;
+  }
+  
+}
@@ -0,0 +1,63 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// analyzes many boards at once, spreading them over a fork-join pool
+class BoardAnalyzer {
+  ForkJoinPool pool;
+  
+  BoardAnalyzer() {
+    this(ForkJoinPool.commonPool());
+  }
+  
+  BoardAnalyzer(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+  
+  // analyzes each of the given boards
+  // throws an IllegalArgumentException if any board is not a square grid
+  public BoardAnalysis[] analyze(PackedBoard[] boards) {
+    for (PackedBoard b : boards) {
+      if (!(b.topology instanceof SquareGrid)) {
+        throw new IllegalArgumentException("Only square grids can be analyzed");
+      }
+    }
+    BoardAnalysis[] results = new BoardAnalysis[boards.length];
+    pool.invoke(new AnalysisBatch(boards, results, 0, boards.length));
+    return results;
+  }
+  
+}
+
+// analyzes the boards from one index up to another, splitting them in half
+// until there are few enough to analyze one after another
+@SuppressWarnings("serial")
+class AnalysisBatch extends RecursiveAction {
+  // the most boards worth analyzing in one task
+  static final int BATCH_BOARDS = 4;
+  
+  PackedBoard[] boards;
+  BoardAnalysis[] results;
+  int from;
+  int to;
+  
+  AnalysisBatch(PackedBoard[] boards, BoardAnalysis[] results, int from, int to) {
+    this.boards = boards;
+    this.results = results;
+    this.from = from;
+    this.to = to;
+  }
+  
+  // analyzes the boards from from up to to
+  protected void compute() {
+    if (to - from > BATCH_BOARDS) {
+      int middle = (from + to) / 2;
+      invokeAll(new AnalysisBatch(boards, results, from, middle), 
+          new AnalysisBatch(boards, results, middle, to));
+      return;
+    }
+    for (int i = from; i < to; i++) {
+      results[i] = new BoardAnalysis(boards[i]);
+    }
+  }
+  
+}
@@ -0,0 +1,187 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// saves and loads games in a compact binary file, through a memory-mapped FileChannel
+// the file is a 48 byte header, then the wires of every tile, four bits each,
+// two tiles to a byte with the first in the low bits, then the tree of the board
+// as two bits per tile, saying whether it connects to the tile on its right and
+// the tile below, four tiles to a byte with the first in the lowest bits
+// the header is, little-endian:
+//   magic int, version short, flags short (always 0 for now),
+//   width, height, powerRow and powerCol ints, seed long,
+//   clicks, ticks and bestScore ints, and the number of edges in the tree as an int
+// power is not saved, since it follows from the rest
+class BoardFile {
+  // "LEA" followed by a zero byte, read as a little-endian int
+  static final int MAGIC = 0x0041454C;
+  // the newest version of the format, which is the only one so far
+  static final short VERSION = 1;
+  static final int HEADER_BYTES = 48;
+  // how many bytes of tiles are packed or unpacked at a time
+  static final int CHUNK_BYTES = 1 << 16;
+  
+  // the number of bytes the wires of the given number of tiles take
+  static long tileBytes(long tiles) {
+    return (tiles + 1) / 2;
+  }
+  
+  // the number of bytes the tree of the given number of tiles takes
+  static long treeBytes(long tiles) {
+    return (tiles + 3) / 4;
+  }
+  
+  // saves the given game to the given file, replacing it if it exists
+  // throws an IOException if the game is not on a square grid, which is all the format holds
+  static void save(GameEngine game, Path path) throws IOException {
+    PackedBoard b = game.packed;
+    if (!(b.topology instanceof SquareGrid)) {
+      throw new IOException("Only square grids can be saved");
+    }
+    int n = b.cells.length;
+    long size = HEADER_BYTES + tileBytes(n) + treeBytes(n);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, 
+        StandardOpenOption.READ, StandardOpenOption.WRITE, 
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      out.order(ByteOrder.LITTLE_ENDIAN);
+      out.putInt(MAGIC);
+      out.putShort(VERSION);
+      out.putShort((short) 0);
+      out.putInt(b.width);
+      out.putInt(b.height);
+      out.putInt(game.powerRow);
+      out.putInt(game.powerCol);
+      out.putLong(game.seed);
+      out.putInt(game.clicks);
+      out.putInt(game.ticks);
+      out.putInt(game.bestScore);
+      out.putInt(game.tree.count);
+      
+      // the wires, a chunk at a time
+      byte[] chunk = new byte[CHUNK_BYTES];
+      for (int tile = 0; tile < n; tile += 2 * CHUNK_BYTES) {
+        int length = (int) Math.min(CHUNK_BYTES, tileBytes(n - tile));
+        for (int i = 0; i < length; i++) {
+          int first = tile + 2 * i;
+          int second = first + 1 < n ? b.cells[first + 1] & PackedBoard.WIRES : 0;
+          chunk[i] = (byte) ((b.cells[first] & PackedBoard.WIRES) | second << 4);
+        }
+        out.put(chunk, 0, length);
+      }
+      
+      // the tree
+      byte[] tree = new byte[(int) treeBytes(n)];
+      GridEdges edges = game.tree;
+      for (int e = 0; e < edges.count; e++) {
+        int tile = Math.min(edges.from[e], edges.to[e]);
+        int other = Math.max(edges.from[e], edges.to[e]);
+        // bit 0 is the edge to the right, bit 1 the edge below
+        int bit = other == tile + b.width ? 2 : 1;
+        tree[tile / 4] |= (byte) (bit << (tile % 4 * 2));
+      }
+      out.put(tree);
+      out.force();
+    }
+  }
+  
+  // loads the game saved in the given file, whose future boards come from the given generator
+  // the loaded game's random number generator starts again from the seed of its board
+  static GameEngine load(Path path, IMazeGenerator generator) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_BYTES) {
+        throw new IOException("Not a LightEmAll save file");
+      }
+      MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      in.order(ByteOrder.LITTLE_ENDIAN);
+      if (in.getInt() != MAGIC) {
+        throw new IOException("Not a LightEmAll save file");
+      }
+      short version = in.getShort();
+      if (version > VERSION || version < 1) {
+        throw new IOException("Unsupported save file version " + version);
+      }
+      in.getShort();
+      int width = in.getInt();
+      int height = in.getInt();
+      int powerRow = in.getInt();
+      int powerCol = in.getInt();
+      long seed = in.getLong();
+      int clicks = in.getInt();
+      int ticks = in.getInt();
+      int bestScore = in.getInt();
+      int edgeCount = in.getInt();
+      long n = (long) width * height;
+      if (width < 1 || height < 1 || n > Integer.MAX_VALUE || powerRow < 0 
+          || powerRow >= height || powerCol < 0 || powerCol >= width || edgeCount != n - 1 
+          || channel.size() < HEADER_BYTES + tileBytes(n) + treeBytes(n)) {
+        throw new IOException("Corrupt save file");
+      }
+      
+      // the wires, a chunk at a time
+      PackedBoard b = new PackedBoard(width, height);
+      byte[] chunk = new byte[CHUNK_BYTES];
+      for (int tile = 0; tile < n; tile += 2 * CHUNK_BYTES) {
+        int length = (int) Math.min(CHUNK_BYTES, tileBytes(n - tile));
+        in.get(chunk, 0, length);
+        for (int i = 0; i < length; i++) {
+          int first = tile + 2 * i;
+          b.cells[first] = (byte) (chunk[i] & PackedBoard.WIRES);
+          if (first + 1 < n) {
+            b.cells[first + 1] = (byte) ((chunk[i] >> 4) & PackedBoard.WIRES);
+          }
+        }
+      }
+      b.set(b.index(powerRow, powerCol), PackedBoard.STATION);
+      
+      // the tree
+      GridEdges tree = new GridEdges(edgeCount);
+      for (int tile = 0; tile < n; tile += 4) {
+        int bits = in.get() & 0xFF;
+        for (int i = 0; bits != 0; i++, bits >>>= 2) {
+          if ((bits & 1) != 0) {
+            BoardFile.addEdge(tree, tile + i, tile + i + 1, (tile + i) % width < width - 1);
+          }
+          if ((bits & 2) != 0) {
+            BoardFile.addEdge(tree, tile + i, tile + i + width, tile + i + width < n);
+          }
+        }
+      }
+      BoardFile.checkTree(tree, (int) n);
+      
+      GameEngine game = new GameEngine(new GeneratedBoard(seed, b, tree, powerRow, powerCol), 
+          generator);
+      game.clicks = clicks;
+      game.ticks = ticks;
+      game.bestScore = bestScore;
+      return game;
+    }
+  }
+  
+  // adds a saved edge to the given tree, if it fits the board and the tree has room for it
+  static void addEdge(GridEdges tree, int from, int to, boolean fits) throws IOException {
+    if (!fits || tree.count == tree.from.length) {
+      throw new IOException("Corrupt save file");
+    }
+    tree.add(from, to, 0);
+  }
+  
+  // checks that the given saved tree is a spanning tree of the given number of tiles:
+  // n - 1 edges without a loop between them connect every tile
+  // throws an IOException if it is not, since the game could never be won
+  static void checkTree(GridEdges tree, int n) throws IOException {
+    BucketKruskal groups = new BucketKruskal(n);
+    if (tree.count != n - 1) {
+      throw new IOException("Corrupt save file");
+    }
+    for (int e = 0; e < tree.count; e++) {
+      if (!groups.union(tree.from[e], tree.to[e])) {
+        throw new IOException("Corrupt save file");
+      }
+    }
+  }
+  
+}
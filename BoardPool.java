@@ -0,0 +1,147 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// boards generated ahead of time by background threads, so starting a new game
+// only has to take one; each size and bias has its own queue of boards, which
+// is topped back up to capacity whenever taking leaves it below the refill level
+class BoardPool {
+  // how many boards each queue holds, and how few it can have before it is refilled
+  int capacity;
+  int refillBelow;
+  IMazeGenerator generator;
+  // the threads generating boards
+  ExecutorService workers;
+  // the queue for each size and bias, and whether it is being filled
+  ConcurrentHashMap<String, ArrayBlockingQueue<GeneratedBoard>> ready;
+  ConcurrentHashMap<String, AtomicBoolean> filling;
+  // picks the seeds of new boards
+  SplittableRandom seeds;
+  // how many boards were taken ready made, how many were asked for when none were
+  // ready, and how many have been generated
+  AtomicLong hits;
+  AtomicLong misses;
+  AtomicLong generated;
+  
+  // a pool of boards from the given generator, made by the given number of threads,
+  // whose seeds are picked starting from the given seed
+  BoardPool(IMazeGenerator generator, int capacity, int refillBelow, int threads, long seed) {
+    if (capacity < 1 || refillBelow < 0 || refillBelow > capacity || threads < 1) {
+      throw new IllegalArgumentException("Invalid board pool configuration");
+    }
+    this.generator = generator;
+    this.capacity = capacity;
+    this.refillBelow = refillBelow;
+    this.workers = Executors.newFixedThreadPool(threads, new DaemonThreads());
+    this.ready = new ConcurrentHashMap<String, ArrayBlockingQueue<GeneratedBoard>>();
+    this.filling = new ConcurrentHashMap<String, AtomicBoolean>();
+    this.seeds = new SplittableRandom(seed);
+    this.hits = new AtomicLong();
+    this.misses = new AtomicLong();
+    this.generated = new AtomicLong();
+  }
+  
+  // the name of the queue for the given size and bias
+  String key(int width, int height, double bias) {
+    return width + "x" + height + " " + bias;
+  }
+  
+  // the queue with the given name, made empty if there was none
+  ArrayBlockingQueue<GeneratedBoard> queue(String key) {
+    filling.putIfAbsent(key, new AtomicBoolean(false));
+    ready.putIfAbsent(key, new ArrayBlockingQueue<GeneratedBoard>(capacity));
+    return ready.get(key);
+  }
+  
+  // takes a ready board of the given size and bias, or returns null if there are none,
+  // refilling the queue if it is running low
+  public GeneratedBoard take(int width, int height, double bias) {
+    ArrayBlockingQueue<GeneratedBoard> queue = this.queue(this.key(width, height, bias));
+    GeneratedBoard board = queue.poll();
+    if (board == null) {
+      misses.incrementAndGet();
+    }
+    else {
+      hits.incrementAndGet();
+    }
+    if (board == null || queue.size() < refillBelow) {
+      this.fill(width, height, bias);
+    }
+    return board;
+  }
+  
+  // starts filling the queue for the given size and bias, unless it is already being filled
+  public void fill(int width, int height, double bias) {
+    String key = this.key(width, height, bias);
+    ArrayBlockingQueue<GeneratedBoard> queue = this.queue(key);
+    if (filling.get(key).compareAndSet(false, true)) {
+      workers.execute(new PoolRefill(this, key, queue, width, height, bias));
+    }
+  }
+  
+  // the seed of the next board to generate
+  synchronized long nextSeed() {
+    return seeds.nextLong();
+  }
+  
+  // how many boards of the given size and bias are ready
+  public int readyCount(int width, int height, double bias) {
+    return this.queue(this.key(width, height, bias)).size();
+  }
+  
+  // stops generating boards
+  public void shutdown() {
+    workers.shutdownNow();
+  }
+  
+}
+
+// generates boards for one queue of a BoardPool until it is full
+class PoolRefill implements Runnable {
+  BoardPool pool;
+  String key;
+  ArrayBlockingQueue<GeneratedBoard> queue;
+  int width;
+  int height;
+  double bias;
+  
+  PoolRefill(BoardPool pool, String key, ArrayBlockingQueue<GeneratedBoard> queue, 
+      int width, int height, double bias) {
+    this.pool = pool;
+    this.key = key;
+    this.queue = queue;
+    this.width = width;
+    this.height = height;
+    this.bias = bias;
+  }
+  
+  // generates boards until the queue is full, then lets the queue be filled again,
+  // starting straight away if boards were taken meanwhile and it is low again
+  public void run() {
+    while (queue.remainingCapacity() > 0 && !Thread.currentThread().isInterrupted()) {
+      queue.offer(new GeneratedBoard(width, height, bias, pool.generator, pool.nextSeed()));
+      pool.generated.incrementAndGet();
+    }
+    pool.filling.get(key).set(false);
+    if (queue.size() < pool.refillBelow) {
+      pool.fill(width, height, bias);
+    }
+  }
+  
+}
+
+// makes the threads of a BoardPool, which should not keep a program running
+class DaemonThreads implements ThreadFactory {
+  // makes a daemon thread running the given task
+  public Thread newThread(Runnable task) {
+    Thread thread = new Thread(task, "board-pool");
+    thread.setDaemon(true);
+    return thread;
+  }
+  
+}
@@ -0,0 +1,85 @@
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// finds ways to rotate the tiles of a board so that its wires form a spanning tree,
+// which is exactly when one station powers every tile, whichever tile it is on
+// each tile's possible rotations are narrowed down by its neighbors and the border
+// until nothing more follows, then the search guesses a rotation and backtracks,
+// with the first few guesses searched in parallel
+class BoardSolver {
+  ForkJoinPool pool;
+  
+  BoardSolver() {
+    this(ForkJoinPool.commonPool());
+  }
+  
+  BoardSolver(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+  
+  // finds up to limit ways to solve the given board, which is not changed
+  // throws an IllegalArgumentException if the board is not a square grid
+  public Solutions solve(PackedBoard b, int limit) {
+    if (!(b.topology instanceof SquareGrid)) {
+      throw new IllegalArgumentException("Only square grids can be solved");
+    }
+    Solutions found = new Solutions(limit);
+    SolverState state = new SolverState(b);
+    if (state.possible() && state.propagate()) {
+      pool.invoke(new SolverBranch(state, found, 0, 0));
+    }
+    return found;
+  }
+  
+}
+
+// searches below one guess of BoardSolver, giving each option of the next guess
+// its own copy of the state to search in parallel, until deep enough that there
+// are enough tasks to go around
+// the guesses so far make up its rank, two bits for each guess's number of turns,
+// so the branches rank in the order a search on one thread would try them
+@SuppressWarnings("serial")
+class SolverBranch extends RecursiveAction {
+  // how many guesses deep to keep splitting the search
+  static final int SPLIT_DEPTH = 3;
+  
+  SolverState state;
+  Solutions found;
+  int depth;
+  long rank;
+  
+  SolverBranch(SolverState state, Solutions found, int depth, long rank) {
+    this.state = state;
+    this.found = found;
+    this.depth = depth;
+    this.rank = rank;
+  }
+  
+  // searches below the guesses made so far
+  protected void compute() {
+    if (depth >= SPLIT_DEPTH) {
+      state.search(found, rank);
+      return;
+    }
+    int tile = state.choose();
+    if (tile == -1) {
+      // ranks as if the guesses it did not need had been 0 turns
+      found.record(state, rank << 2 * (SPLIT_DEPTH - depth));
+      return;
+    }
+    found.guessed();
+    ArrayList<SolverBranch> branches = new ArrayList<SolverBranch>();
+    int allowed = state.options[tile];
+    for (int turns = 0; turns < 4; turns++) {
+      if ((allowed & (1 << turns)) != 0) {
+        SolverState guess = new SolverState(state);
+        if (guess.fix(tile, turns)) {
+          branches.add(new SolverBranch(guess, found, depth + 1, rank << 2 | turns));
+        }
+      }
+    }
+    invokeAll(branches);
+  }
+  
+}
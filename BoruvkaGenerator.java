@@ -0,0 +1,72 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// lays out a board as the MST of randomly weighted edges, found with boruvka's algorithm:
+// every round, each group of tiles joins up with its lightest edge to another group
+class BoruvkaGenerator implements IMazeGenerator {
+  
+  // runs boruvka's algorithm over every edge of the grid,
+  // breaking ties between equal weights by edge order
+  public GridEdges generate(int width, int height, double bias, SplittableRandom rand) {
+    return this.spanningTree(new GridEdges(width, height, bias, rand), width * height);
+  }
+  
+  // runs boruvka's algorithm over every pair of neighboring tiles of the board
+  public GridEdges generate(PackedBoard b, double bias, SplittableRandom rand) {
+    if (b.topology instanceof SquareGrid) {
+      return this.generate(b.width, b.height, bias, rand);
+    }
+    return this.spanningTree(new GridEdges(b, bias, rand), b.cells.length);
+  }
+  
+  // the minimum spanning tree of the given edges between the given number of tiles
+  GridEdges spanningTree(GridEdges edges, int n) {
+    GridEdges tree = new GridEdges(Math.max(n - 1, 0));
+    BucketKruskal groups = new BucketKruskal(n);
+    // the lightest edge leading out of each group so far this round, or -1
+    int[] lightest = new int[n];
+    Arrays.fill(lightest, -1);
+    // the edges that still join two different groups
+    int[] live = new int[edges.count];
+    int liveCount = edges.count;
+    for (int e = 0; e < liveCount; e++) {
+      live[e] = e;
+    }
+    
+    while (tree.count < n - 1) {
+      int kept = 0;
+      for (int i = 0; i < liveCount; i++) {
+        int e = live[i];
+        int a = groups.find(edges.from[e]);
+        int b = groups.find(edges.to[e]);
+        if (a != b) {
+          live[kept++] = e;
+          if (this.lighter(edges, e, lightest[a])) {
+            lightest[a] = e;
+          }
+          if (this.lighter(edges, e, lightest[b])) {
+            lightest[b] = e;
+          }
+        }
+      }
+      liveCount = kept;
+      for (int group = 0; group < n; group++) {
+        int e = lightest[group];
+        if (e != -1) {
+          lightest[group] = -1;
+          if (groups.union(edges.from[e], edges.to[e])) {
+            tree.add(edges.from[e], edges.to[e], edges.weight[e]);
+          }
+        }
+      }
+    }
+    return tree;
+  }
+  
+  // checks if edge e is lighter than edge other, or other is -1
+  boolean lighter(GridEdges edges, int e, int other) {
+    return other == -1 || edges.weight[e] < edges.weight[other] 
+        || (edges.weight[e] == edges.weight[other] && e < other);
+  }
+  
+}
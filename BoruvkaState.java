@@ -0,0 +1,134 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// the shared state of one run of ParallelBoruvkaGenerator
+// each tile has perTile edges: on a square grid edge 2 * tile joins a tile to the tile
+// on its right, and edge 2 * tile + 1 joins it to the tile below; on other boards
+// edge perTile * tile + i joins it to its neighbor along the wire perTile + i,
+// the second half of its wires, whose opposites are the first
+class BoruvkaState {
+  int width;
+  int height;
+  // the board whose neighbors the edges join, or null for a square grid
+  PackedBoard board;
+  int perTile;
+  // the weight of each edge
+  byte[] weight;
+  // the union-find over tiles, where a tile that is its own parent represents its group
+  AtomicIntegerArray parent;
+  // the lightest edge leading out of each group this round, or -1
+  AtomicIntegerArray lightest;
+  // whether each edge is in the tree
+  boolean[] picked;
+  // how many edges are in the tree
+  AtomicInteger added;
+  
+  BoruvkaState(int width, int height) {
+    this(null, width, height, 2);
+  }
+  
+  // the state for the given board, whose neighbor table is built before any thread reads it
+  BoruvkaState(PackedBoard b) {
+    this(b.topology instanceof SquareGrid ? null : b, b.width, b.height, b.directions / 2);
+    b.neighbors();
+  }
+  
+  BoruvkaState(PackedBoard board, int width, int height, int perTile) {
+    int n = width * height;
+    this.width = width;
+    this.height = height;
+    this.board = board;
+    this.perTile = perTile;
+    this.weight = new byte[perTile * n];
+    this.parent = new AtomicIntegerArray(n);
+    this.lightest = new AtomicIntegerArray(n);
+    for (int i = 0; i < n; i++) {
+      parent.set(i, i);
+      lightest.set(i, -1);
+    }
+    this.picked = new boolean[perTile * n];
+    this.added = new AtomicInteger(0);
+  }
+  
+  // checks if the given edge is on the board
+  public boolean exists(int e) {
+    if (board != null) {
+      return this.other(e) != -1;
+    }
+    int tile = e / 2;
+    if (e % 2 == 0) {
+      return tile % width < width - 1;
+    }
+    return tile / width < height - 1;
+  }
+  
+  // the tile the given edge leads to, or -1 if it is not on the board
+  public int other(int e) {
+    if (board != null) {
+      return board.neighbor(e / perTile, 1 << (perTile + e % perTile));
+    }
+    return e % 2 == 0 ? e / 2 + 1 : e / 2 + width;
+  }
+  
+  // checks if the given edge joins two tiles of the same row
+  public boolean horizontal(int e) {
+    if (board != null) {
+      return this.other(e) / width == e / perTile / width;
+    }
+    return e % 2 == 0;
+  }
+  
+  // checks if edge e is lighter than edge other, or other is -1,
+  // breaking ties by edge order
+  public boolean lighter(int e, int other) {
+    return other == -1 || weight[e] < weight[other] 
+        || (weight[e] == weight[other] && e < other);
+  }
+  
+  // finds the representative of the given tile, pointing tiles on the way at their
+  // grandparents when no other thread has changed them in the meantime
+  public int find(int tile) {
+    while (true) {
+      int p = parent.get(tile);
+      if (p == tile) {
+        return tile;
+      }
+      int grandparent = parent.get(p);
+      if (p != grandparent) {
+        parent.compareAndSet(tile, p, grandparent);
+      }
+      tile = grandparent;
+    }
+  }
+  
+  // joins the groups of the two given tiles, returning false if they were already joined
+  // a representative is always hung under a smaller one, so threads can never make a loop
+  public boolean union(int a, int b) {
+    while (true) {
+      a = this.find(a);
+      b = this.find(b);
+      if (a == b) {
+        return false;
+      }
+      if (a > b) {
+        int swap = a;
+        a = b;
+        b = swap;
+      }
+      if (parent.compareAndSet(b, b, a)) {
+        return true;
+      }
+    }
+  }
+  
+  // makes the given edge the lightest one leading out of the given group, if it is lighter
+  public void offer(int group, int e) {
+    while (true) {
+      int current = lightest.get(group);
+      if (!this.lighter(e, current) || lightest.compareAndSet(group, current, e)) {
+        return;
+      }
+    }
+  }
+  
+}
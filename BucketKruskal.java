@@ -0,0 +1,80 @@
+import java.util.Arrays;
+
+// represents/executes kruskal's algorithm on nodes numbered 0 to n - 1,
+// using a union-find over int arrays instead of a HashMap of CartPts,
+// and a counting sort instead of a comparator since weights are small
+class BucketKruskal {
+  // the parent of each node, where a node that is its own parent is a representative
+  int[] parent;
+  // an upper bound on the height of the tree under each representative
+  byte[] rank;
+  
+  BucketKruskal(int nodes) {
+    this.parent = new int[nodes];
+    this.rank = new byte[nodes];
+    for (int i = 0; i < nodes; i++) {
+      parent[i] = i;
+    }
+  }
+  
+  // runs kruskal's algorithm over the first count edges, given as parallel arrays,
+  // whose weights are all in [0, maxWeight)
+  // returns the indices of the edges in the tree, in the order they were added
+  public int[] run(int[] from, int[] to, int[] weight, int count, int maxWeight) {
+    // counts the edges of each weight, then works out where each weight starts
+    int[] start = new int[maxWeight + 1];
+    for (int i = 0; i < count; i++) {
+      start[weight[i] + 1]++;
+    }
+    for (int w = 0; w < maxWeight; w++) {
+      start[w + 1] += start[w];
+    }
+    // sorts the edges by weight, keeping edges of the same weight in order
+    int[] sorted = new int[count];
+    for (int i = 0; i < count; i++) {
+      sorted[start[weight[i]]++] = i;
+    }
+    
+    int[] tree = new int[Math.max(parent.length - 1, 0)];
+    int size = 0;
+    for (int i = 0; i < count && size < tree.length; i++) {
+      int e = sorted[i];
+      if (this.union(from[e], to[e])) {
+        tree[size++] = e;
+      }
+    }
+    return size == tree.length ? tree : Arrays.copyOf(tree, size);
+  }
+  
+  // finds the representative of the given node,
+  // pointing every other node on the way at its grandparent
+  public int find(int node) {
+    while (parent[node] != node) {
+      parent[node] = parent[parent[node]];
+      node = parent[node];
+    }
+    return node;
+  }
+  
+  // joins the groups of the two given nodes, hanging the shorter tree under the taller,
+  // returning false if they were already in the same group
+  public boolean union(int a, int b) {
+    int ra = this.find(a);
+    int rb = this.find(b);
+    if (ra == rb) {
+      return false;
+    }
+    if (rank[ra] < rank[rb]) {
+      parent[ra] = rb;
+    }
+    else if (rank[ra] > rank[rb]) {
+      parent[rb] = ra;
+    }
+    else {
+      parent[rb] = ra;
+      rank[ra]++;
+    }
+    return true;
+  }
+  
+}
@@ -0,0 +1,29 @@
+// represents a cartesian point
+class CartPt {
+  int x;
+  int y;
+  
+  CartPt(int x, int y) {
+    this.x = x;
+    this.y = y;
+  }
+  
+  // checks if two CartPts are equal
+  public boolean equals(Object o) {
+    if (!(o instanceof CartPt)) {
+      return false;
+    }
+    CartPt other = (CartPt) o;
+    return this.x == other.x && this.y == other.y;
+  }
+  
+  // makes a new hashCode so that CartPts with the same x and y 
+  // will be equal
+  public int hashCode() {
+    int result = 200;
+    result = 200 * result + x;
+    result = 200 * result + y;
+    return result;
+  }
+  
+}
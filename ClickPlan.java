@@ -0,0 +1,135 @@
+import java.util.Arrays;
+
+// the fewest clicks that turn a board back into the tree it was generated from
+// each tile needs the fewest counterclockwise turns that give it its wires in the tree,
+// so a straight wire never needs more than one and a cross never needs any
+class ClickPlan {
+  // the turns each tile needs
+  byte[] turns;
+  // the turns all tiles need
+  int rotations;
+  // how many times the station has to move, see limit: while power is unlimited
+  // it reaches every tile of a tree wherever the station is, so it never has to
+  int stationMoves;
+  // whether power can reach every tile of the tree at all
+  boolean reachable;
+  // the board planned for, the tree it turns into, and the tile the station started on
+  PackedBoard board;
+  GridEdges tree;
+  int station;
+  
+  // plans the clicks that turn the given board, with its station on the given tile,
+  // into the given spanning tree of it, with power unlimited,
+  // or plans none if the tree is empty because the board has no solution
+  ClickPlan(PackedBoard b, GridEdges tree, int station) {
+    PackedBoard solved = this.solved(b, tree);
+    this.board = b;
+    this.tree = tree;
+    this.station = station;
+    this.turns = new byte[b.cells.length];
+    this.rotations = 0;
+    this.stationMoves = 0;
+    this.reachable = true;
+    if (tree.count == 0) {
+      return;
+    }
+    for (int tile = 0; tile < b.cells.length; tile++) {
+      int wires = b.wires(tile);
+      int turned = 0;
+      while (turned < b.directions - 1 && wires != solved.wires(tile)) {
+        wires = b.turn(wires);
+        turned++;
+      }
+      turns[tile] = (byte) turned;
+      this.rotations += turned;
+    }
+  }
+  
+  // the board with the wires of the tree of the given board
+  PackedBoard solved(PackedBoard b, GridEdges tree) {
+    PackedBoard solved = new PackedBoard(b.width, b.height, b.topology);
+    for (int e = 0; e < tree.count; e++) {
+      solved.connect(tree.from[e], tree.to[e]);
+    }
+    return solved;
+  }
+  
+  // plans the station moves when power only reaches the given number of wires from the
+  // station, or none if it is PowerFlood.UNLIMITED
+  // power has to reach every tile of the tree, so once it is solved the station moves
+  // along it to the nearest tile within the radius of every other, which are the tiles
+  // within the radius of both ends of a longest path through the tree
+  // if there is no such tile, power can never reach every tile, and the station moves
+  // to the nearest tile as close to the middle of the tree as any
+  public void limit(int radius) {
+    this.stationMoves = 0;
+    this.reachable = true;
+    if (radius == PowerFlood.UNLIMITED || tree.count == 0) {
+      return;
+    }
+    PackedBoard solved = this.solved(board, tree);
+    int[] fromStation = this.distances(solved, station);
+    int[] fromEnd = this.distances(solved, this.farthest(fromStation));
+    int[] fromOther = this.distances(solved, this.farthest(fromEnd));
+    int middle = Integer.MAX_VALUE;
+    for (int tile = 0; tile < fromEnd.length; tile++) {
+      middle = Math.min(middle, Math.max(fromEnd[tile], fromOther[tile]));
+    }
+    this.reachable = middle <= radius;
+    int most = Math.max(middle, radius);
+    this.stationMoves = Integer.MAX_VALUE;
+    for (int tile = 0; tile < fromEnd.length; tile++) {
+      if (fromEnd[tile] <= most && fromOther[tile] <= most) {
+        this.stationMoves = Math.min(stationMoves, fromStation[tile]);
+      }
+    }
+  }
+  
+  // how many wires each tile of the given solved board is from the given tile
+  int[] distances(PackedBoard solved, int from) {
+    int[] dist = new int[solved.cells.length];
+    int[] queue = new int[solved.cells.length];
+    Arrays.fill(dist, -1);
+    dist[from] = 0;
+    queue[0] = from;
+    int tail = 1;
+    for (int head = 0; head < tail; head++) {
+      int tile = queue[head];
+      for (int dir = 1; dir <= solved.wireMask; dir <<= 1) {
+        int other = solved.neighbor(tile, dir);
+        if (solved.connected(tile, dir) && dist[other] == -1) {
+          dist[other] = dist[tile] + 1;
+          queue[tail++] = other;
+        }
+      }
+    }
+    return dist;
+  }
+  
+  // the first tile furthest away in the given distances
+  int farthest(int[] dist) {
+    int far = 0;
+    for (int tile = 1; tile < dist.length; tile++) {
+      if (dist[tile] > dist[far]) {
+        far = tile;
+      }
+    }
+    return far;
+  }
+  
+  // the fewest clicks that solve the board
+  public int optimum() {
+    return rotations + stationMoves;
+  }
+  
+  // how close the given number of clicks is to the fewest, from 0 to 1
+  // a board with more than one solution can take fewer clicks than planned,
+  // which still only counts as 1
+  public double efficiency(int clicks) {
+    if (clicks <= this.optimum()) {
+      return 1;
+    }
+    return this.optimum() / (double) clicks;
+  }
+  
+}
@@ -0,0 +1,13 @@
+// represents an edge 
+class Edge {
+  GamePiece fromNode;
+  GamePiece toNode;
+  int weight;
+  
+  Edge(GamePiece fromNode, GamePiece toNode, int weight) {
+    this.fromNode = fromNode;
+    this.toNode = toNode;
+    this.weight = weight;
+  }
+  
+}
@@ -0,0 +1,347 @@
+import java.util.SplittableRandom;
+
+// the rules of LightEmAll without any drawing: a board with a power station,
+// and the clicks and ticks it takes to power every tile
+// it only needs java.util, so programs can play games as well as people
+class GameEngine {
+  
+  // the board, packed into one byte per tile
+  PackedBoard packed;
+  
+  // spreads power out from the power station
+  PowerFlood flood;
+  
+  // picks which wires connect the tiles of a new board
+  IMazeGenerator generator;
+  
+  // the seed the current board was generated from, which is enough
+  // to generate it again, and the game's random number generator,
+  // which picks the seeds for new boards
+  long seed;
+  SplittableRandom rand;
+  
+  // the wires of the current board before it was scrambled,
+  // which form a spanning tree of its tiles
+  GridEdges tree;
+  
+  // the fewest clicks the current board needed when it was new
+  ClickPlan plan;
+  
+  // where new boards come from when restarting, or null to generate them on the spot
+  BoardPool pool;
+  
+  // where the moves made are recorded, or null if they are not
+  MoveLog log;
+  
+  // how often and how long the hot paths of the game run
+  GameMetrics metrics;
+  
+  // the width and height of the board
+  int width;
+  int height;
+  
+  // the current location of the power station,
+  // as well as its effective radius
+  int powerRow;
+  int powerCol;
+  int radius;
+  
+  // keeps track of clicks
+  int clicks;
+  
+  // keeps track of time in ticks
+  int ticks;
+  
+  // keeps track of the best score (clicks * ticks)
+  int bestScore;
+  
+  // one in how many tiles a batch of rotations has to rotate for flooding the whole board
+  // to be cheaper than updating power around the rotated tiles
+  static final int BATCH_FLOOD = 16;
+  
+  // creates a new game whose first board is generated from the given seed
+  // bias is between -1 and 1: 0 is no bias, the closer to 1 the more
+  // horizontal wires there are, the closer to -1 the more vertical wires
+  GameEngine(int width, int height, double bias, IMazeGenerator generator, long seed) {
+    this(PackedBoard.GRID, width, height, bias, generator, seed);
+  }
+  
+  // creates a new game laid out as the given topology, whose first board is generated
+  // from the given seed
+  GameEngine(ITopology topology, int width, int height, double bias, IMazeGenerator generator,
+      long seed) {
+    this.setUp(width, height, generator, seed);
+    // the first board is timed like every board generated later
+    long start = metrics.start();
+    GeneratedBoard board = new GeneratedBoard(topology, width, height, bias, generator, seed);
+    metrics.stop(GameMetrics.GENERATE, start);
+    this.install(board);
+  }
+  
+  // creates a new game on the given board, whose later boards come from the given generator,
+  // with seeds picked starting from the board's own seed
+  // the board was not generated for this game, so its generation is not timed
+  GameEngine(GeneratedBoard board, IMazeGenerator generator) {
+    this.setUp(board.packed.width, board.packed.height, generator, board.seed);
+    this.install(board);
+  }
+  
+  // sets up everything but the board for a new game of the given size,
+  // whose boards come from the given generator, with seeds picked starting from the given one
+  void setUp(int width, int height, IMazeGenerator generator, long seed) {
+    this.width = width;
+    this.height = height;
+    this.radius = Math.max(width / 2, height / 2);
+    this.flood = new PowerFlood();
+    this.generator = generator;
+    this.rand = new SplittableRandom(seed);
+    this.clicks = 0;
+    this.ticks = 0;
+    
+    // sets bestScore to a default of 1000
+    this.bestScore = 1000;
+    this.pool = null;
+    this.log = null;
+    this.metrics = new GameMetrics();
+  }
+  
+  // generates and powers the board for the current seed
+  public void newBoard(double bias) {
+    this.install(this.generate(bias, seed));
+  }
+  
+  // plays the given board from now on, powering it
+  public void install(GeneratedBoard board) {
+    this.seed = board.seed;
+    // boards of the same shape have the same neighbors, so the new board can take
+    // the table of the old one instead of building it again
+    if (packed != null && packed.topology == board.packed.topology 
+        && packed.width == board.packed.width && packed.height == board.packed.height) {
+      board.packed.next = packed.next;
+    }
+    this.packed = board.packed;
+    this.tree = board.tree;
+    this.powerRow = board.powerRow;
+    this.powerCol = board.powerCol;
+    this.plan = new ClickPlan(packed, tree, packed.index(powerRow, powerCol));
+    plan.limit(flood.radius);
+    // a board that comes solved was not won by anyone, so this does not check for a win
+    this.power();
+  }
+  
+  // starts again from nothing on a new board with a random bias:
+  // none, towards vertical or towards horizontal
+  // the board comes ready made from the pool if there is one and it has one,
+  // otherwise it is generated from the next seed of the game's random number generator,
+  // which picks the same seeds and biases whichever way the boards come, so a game
+  // without a pool plays out the same from the same seed, and any board is
+  // the one its seed and bias generate, see restart(long, double)
+  public void restart() {
+    long next = rand.nextLong();
+    double bias = (rand.nextInt(3) - 1) / 3.0;
+    GeneratedBoard board = null;
+    // pools only make square grids
+    if (pool != null && packed.topology instanceof SquareGrid) {
+      board = pool.take(width, height, bias);
+    }
+    if (board == null) {
+      board = this.generate(bias, next);
+    }
+    this.begin(board, bias);
+  }
+  
+  // starts again from nothing on the board generated from the given seed with the given
+  // bias, the same board whether it came from a pool or not
+  public void restart(long seed, double bias) {
+    this.begin(this.generate(bias, seed), bias);
+  }
+  
+  // generates a board the size and shape of the current one from the given seed
+  GeneratedBoard generate(double bias, long seed) {
+    long start = metrics.start();
+    GeneratedBoard board = 
+        new GeneratedBoard(packed.topology, width, height, bias, generator, seed);
+    metrics.stop(GameMetrics.GENERATE, start);
+    return board;
+  }
+  
+  // starts again from nothing on the given board, which has the given bias
+  void begin(GeneratedBoard board, double bias) {
+    if (log != null) {
+      log.addRestart(board.seed, bias, ticks);
+    }
+    this.clicks = 0;
+    this.ticks = 0;
+    this.install(board);
+  }
+  
+  // takes new boards from the given pool from now on,
+  // which starts making boards of every bias a restart can pick
+  public void usePool(BoardPool pool) {
+    this.pool = pool;
+    for (int i = -1; i <= 1; i++) {
+      pool.fill(width, height, i / 3.0);
+    }
+  }
+  
+  // rotates the tile at the given row and column and counts the click,
+  // returning whether it did, which it does not if the game is over or there is no such tile
+  public boolean rotate(int row, int col) {
+    if (this.isSolved() || row < 0 || row >= height || col < 0 || col >= width) {
+      return false;
+    }
+    int tile = packed.index(row, col);
+    packed.rotate(tile);
+    // updates power around the rotated tile
+    long start = metrics.start();
+    flood.rotated(packed, packed.index(powerRow, powerCol), tile);
+    metrics.stop(GameMetrics.POWER, start);
+    if (log != null) {
+      log.add(MoveLog.ROTATE, tile, ticks);
+    }
+    this.clicks++;
+    this.checkWin();
+    return true;
+  }
+  
+  // rotates each of the first count of the given tiles, as indices, the given number of
+  // steps counterclockwise, negative steps being clockwise, and counts a click for each
+  // step, returning whether it did, which it does not if the game is over or any tile
+  // is off the board
+  // a batch is applied whole, and only then checked for a win, so unlike clicking one
+  // tile at a time it goes on rotating tiles if the board is solved part way through
+  // every tile is rotated first, by table lookup, and then power is updated once:
+  // by flooding the board again if the batch rotates at least one tile in BATCH_FLOOD,
+  // otherwise around all of the rotated tiles at once, see PowerFlood.rotatedAll
+  public boolean rotateAll(int[] tiles, int[] turns, int count) {
+    if (this.isSolved()) {
+      return false;
+    }
+    for (int i = 0; i < count; i++) {
+      if (tiles[i] < 0 || tiles[i] >= packed.cells.length) {
+        return false;
+      }
+    }
+    if (log != null) {
+      log.addBatch(tiles, turns, count, packed.directions, ticks);
+    }
+    int station = packed.index(powerRow, powerCol);
+    boolean whole = (long) count * BATCH_FLOOD >= packed.cells.length;
+    // counts as one power update, rotations and all
+    long start = metrics.start();
+    for (int i = 0; i < count; i++) {
+      int steps = Math.floorMod(turns[i], packed.directions);
+      packed.rotate(tiles[i], steps);
+      this.clicks += steps;
+    }
+    if (whole) {
+      flood.flood(packed, station);
+    }
+    else {
+      flood.rotatedAll(packed, station, tiles, count);
+    }
+    metrics.stop(GameMetrics.POWER, start);
+    this.checkWin();
+    return true;
+  }
+  
+  // counts a click that did not rotate any tile, unless the game is over
+  public void miss() {
+    if (!this.isSolved()) {
+      if (log != null) {
+        log.add(MoveLog.MISS, 0, ticks);
+      }
+      this.clicks++;
+    }
+  }
+  
+  // moves the power station along the given wire, one of the wire bits of PackedBoard,
+  // if it connects to the next tile, counting the move even if it does not
+  // returns whether the station moved, which it never does once the game is over
+  public boolean moveStation(int way) {
+    if (this.isSolved()) {
+      return false;
+    }
+    this.clicks++;
+    int station = packed.index(powerRow, powerCol);
+    boolean wire = Integer.bitCount(way) == 1 && (way & packed.wireMask) == way;
+    if (log != null) {
+      log.add(MoveLog.MOVE, wire ? way : 0, ticks);
+    }
+    if (!wire || !packed.connected(station, way)) {
+      return false;
+    }
+    int next = packed.neighbor(station, way);
+    packed.clear(station, PackedBoard.STATION);
+    packed.set(next, PackedBoard.STATION);
+    this.powerRow = next / width;
+    this.powerCol = next % width;
+    // updates power for the new station
+    long start = metrics.start();
+    flood.moved(packed, next);
+    metrics.stop(GameMetrics.POWER, start);
+    this.checkWin();
+    return true;
+  }
+  
+  // checks if every tile is powered
+  // power is only worked out when the board changes, so this just reads the count
+  public boolean isSolved() {
+    return flood.allPowered(packed);
+  }
+  
+  // the score so far, lower is better
+  public int score() {
+    return clicks * ticks;
+  }
+  
+  // how close the clicks so far are to the fewest that solve the board, from 0 to 1,
+  // where 1 is no more clicks than needed
+  public double efficiency() {
+    return plan.efficiency(clicks);
+  }
+  
+  // counts a tick, unless the game is over
+  public void tick() {
+    if (!this.isSolved()) {
+      this.ticks++;
+    }
+  }
+  
+  // only powers tiles at most radius wires from the station from now on if limited,
+  // otherwise every tile connected to it, which is the default
+  public void limitPower(boolean limited) {
+    flood.limit(limited ? radius : PowerFlood.UNLIMITED);
+    plan.limit(flood.radius);
+    this.updatePower();
+  }
+  
+  // recomputes which tiles are powered, returning how many are
+  public int updatePower() {
+    int count = this.power();
+    this.checkWin();
+    return count;
+  }
+  
+  // recomputes which tiles are powered without checking for a win, returning how many are
+  int power() {
+    long start = metrics.start();
+    int count = flood.flood(packed, packed.index(powerRow, powerCol));
+    metrics.stop(GameMetrics.POWER, start);
+    return count;
+  }
+  
+  // turns power off for every tile until the next update, which floods the whole board
+  public void unpower() {
+    packed.clearPower();
+    flood.forget();
+  }
+  
+  // records the score if the game is won and it beats the best score
+  public void checkWin() {
+    if (this.isSolved() && this.score() < this.bestScore) {
+      this.bestScore = this.score();
+    }
+  }
+  
+}
@@ -0,0 +1,124 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// counts how often the hot paths of the game run and how long they take, cheaply enough
+// to leave on: each run costs two reads of the clock and a few uncontended atomic adds
+// times are kept in histograms of power of two buckets, and each run is also a JFR event
+// whenever a flight recording has LightEmAll.HotPath enabled
+class GameMetrics {
+  // the hot paths
+  static final int SCENE = 0;
+  static final int POWER = 1;
+  static final int END_GAME = 2;
+  static final int MOUSE = 3;
+  static final int KEY = 4;
+  static final int TICK = 5;
+  static final int GENERATE = 6;
+  static final String[] NAMES = {"makeScene", "power", "endGame", "onMouseClicked",
+    "onKeyEvent", "onTick", "generate"};
+  // how many buckets each histogram has: bucket i counts times of
+  // 2^(i - 1) up to 2^i - 1 nanoseconds, and bucket 0 counts times of 0
+  static final int BUCKETS = 64;
+  static final EventType EVENT = EventType.getEventType(HotPathEvent.class);
+  
+  // whether runs are counted; turning this off makes start and stop do nothing else
+  volatile boolean enabled;
+  // the histograms of every path, one after the other
+  AtomicLongArray buckets;
+  // the total and the longest time of each path, in nanoseconds
+  AtomicLongArray totals;
+  AtomicLongArray longest;
+  
+  GameMetrics() {
+    this.enabled = true;
+    this.buckets = new AtomicLongArray(NAMES.length * BUCKETS);
+    this.totals = new AtomicLongArray(NAMES.length);
+    this.longest = new AtomicLongArray(NAMES.length);
+  }
+  
+  // the time a run starts, to pass to stop, or 0 if runs are not counted
+  public long start() {
+    return enabled ? System.nanoTime() : 0;
+  }
+  
+  // counts a run of the given path that started at the given time
+  public void stop(int path, long start) {
+    if (start != 0) {
+      this.record(path, System.nanoTime() - start);
+    }
+  }
+  
+  // counts a run of the given path that took the given time, unless runs are not counted
+  // a run too fast for the clock to see takes no time at all, and goes in bucket 0
+  public void record(int path, long nanos) {
+    if (!enabled) {
+      return;
+    }
+    nanos = Math.max(nanos, 0);
+    buckets.incrementAndGet(path * BUCKETS + 64 - Long.numberOfLeadingZeros(nanos));
+    totals.addAndGet(path, nanos);
+    long max = longest.get(path);
+    while (nanos > max && !longest.compareAndSet(path, max, nanos)) {
+      max = longest.get(path);
+    }
+    if (EVENT.isEnabled()) {
+      HotPathEvent event = new HotPathEvent();
+      event.path = NAMES[path];
+      event.elapsed = nanos;
+      event.commit();
+    }
+  }
+  
+  // the counts so far
+  // runs that finish while taking it may only be partly in it
+  public MetricsSnapshot snapshot() {
+    PathMetrics[] paths = new PathMetrics[NAMES.length];
+    for (int p = 0; p < paths.length; p++) {
+      long[] counts = new long[BUCKETS];
+      for (int i = 0; i < BUCKETS; i++) {
+        counts[i] = buckets.get(p * BUCKETS + i);
+      }
+      paths[p] = new PathMetrics(NAMES[p], counts, totals.get(p), longest.get(p));
+    }
+    return new MetricsSnapshot(paths);
+  }
+  
+  // makes these metrics readable over JMX under the given name, returning the name
+  // throws a JMException if the name is malformed or already taken
+  public ObjectName register(String name) throws JMException {
+    ObjectName objectName = new ObjectName("LightEmAll:type=GameMetrics,name=" + name);
+    ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(this), objectName);
+    return objectName;
+  }
+  
+  // stops these metrics being readable over JMX under the given name
+  public void unregister(ObjectName name) throws JMException {
+    ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+  }
+  
+}
+
+// a run of a hot path, as a JFR event
+// the event itself takes no time, since it is only committed once the run is over,
+// so how long the run took is a field of its own
+@Name("LightEmAll.HotPath")
+@Label("Hot Path")
+@Category("LightEmAll")
+@Description("A run of makeScene, power, endGame, input handling, onTick or board generation")
+class HotPathEvent extends Event {
+  @Label("Path")
+  String path;
+  
+  @Label("Elapsed")
+  @Timespan(Timespan.NANOSECONDS)
+  long elapsed;
+}
@@ -0,0 +1,202 @@
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.awt.Color;
+import javalib.worldimages.*;
+
+// represents a game piece
+class GamePiece {
+  
+  // coordinates
+  int row;
+  int col;
+  
+  // whether this GamePiece is connected to the
+  // adjacent left, right, top, or bottom pieces
+  boolean left;
+  boolean right;
+  boolean top;
+  boolean bottom;
+  
+  // whether the power station is on this piece
+  boolean powerStation;
+  boolean powered;
+  
+  // initializes a random GamePiece that does not have the power station
+  GamePiece(int x, int y) {
+    this(x, y, new SplittableRandom());
+  }
+  
+  // initializes a random GamePiece that does not have the power station
+  // using the given random number generator
+  GamePiece(int x, int y, SplittableRandom rand) {
+    this(false, false, false, false, x, y);
+    // picks one of the 15 ways to have at least one connection piece
+    int wires = 1 + rand.nextInt(15);
+    this.left = (wires & 1) != 0;
+    this.right = (wires & 2) != 0;
+    this.top = (wires & 4) != 0;
+    this.bottom = (wires & 8) != 0;
+  }
+  
+  // initializes a GamePiece with given values and powered and powerStation set to false
+  GamePiece(boolean left, boolean right, boolean top, boolean bottom, int col, int row) {
+    this(left, right, top, bottom, col, row, false);
+  }
+  
+  // initializes a GamePiece that can also change powered and powerStation
+  GamePiece(boolean left, boolean right, boolean top, boolean bottom, int col, int row, 
+      boolean powerStation) {
+    this.left = left;
+    this.right = right;
+    this.top = top;
+    this.bottom = bottom;
+    this.powerStation = powerStation;
+    this.powered = false;
+    this.col = col;
+    this.row = row;
+  }
+  
+  // Generate an image of this, the given GamePiece.
+  // - size: the size of the tile, in pixels
+  // - wireWidth: the width of wires, in pixels
+  // - wireColor: the Color to use for rendering wires on this
+  // - hasPowerStation: if true, draws a fancy star on this tile to represent the power station
+  WorldImage tileImage(int size, int wireWidth, Color wireColor, boolean hasPowerStation) {
+    // Start tile image off as a blue square with a wire-width square in the middle,
+    // to make image "cleaner" (will look strange if tile has no wire, but that can't be)
+    WorldImage image = new OverlayImage(
+        new RectangleImage(wireWidth, wireWidth, OutlineMode.SOLID, wireColor),
+        new RectangleImage(size, size, OutlineMode.SOLID, Color.DARK_GRAY));
+    WorldImage vWire = new RectangleImage(wireWidth, (size + 1) / 2, OutlineMode.SOLID, wireColor);
+    WorldImage hWire = new RectangleImage((size + 1) / 2, wireWidth, OutlineMode.SOLID, wireColor);
+   
+    if (this.top) {
+      image = new OverlayOffsetAlign(AlignModeX.CENTER, AlignModeY.TOP, vWire, 0, 0, image);
+    }
+    if (this.right) {
+      image = new OverlayOffsetAlign(AlignModeX.RIGHT, AlignModeY.MIDDLE, hWire, 0, 0, image);
+    }
+    if (this.bottom) {
+      image = new OverlayOffsetAlign(AlignModeX.CENTER, AlignModeY.BOTTOM, vWire, 0, 0, image);
+    }
+    if (this.left) {
+      image = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.MIDDLE, hWire, 0, 0, image);
+    }
+    if (this.powerStation) {
+      image = new OverlayImage(
+                  new OverlayImage(
+                      new StarImage(size / 3, 7, OutlineMode.OUTLINE, new Color(255, 128, 0)),
+                      new StarImage(size / 3, 7, OutlineMode.SOLID, new Color(0, 255, 255))),
+                  image);
+    }
+    return image;
+  }
+  
+  // rotates the GamePiece 90 degrees counterclockwise
+  public void rotate() {
+    this.setWires(PackedBoard.TURNS_4[1 << 4 | this.wires()]);
+  }
+  
+  // the wires of this GamePiece as packed in a PackedBoard
+  public int wires() {
+    int wires = 0;
+    if (this.top) {
+      wires |= PackedBoard.TOP;
+    }
+    if (this.left) {
+      wires |= PackedBoard.LEFT;
+    }
+    if (this.bottom) {
+      wires |= PackedBoard.BOTTOM;
+    }
+    if (this.right) {
+      wires |= PackedBoard.RIGHT;
+    }
+    return wires;
+  }
+  
+  // sets the wires of this GamePiece to the given ones as packed in a PackedBoard
+  public void setWires(int wires) {
+    this.top = (wires & PackedBoard.TOP) != 0;
+    this.left = (wires & PackedBoard.LEFT) != 0;
+    this.bottom = (wires & PackedBoard.BOTTOM) != 0;
+    this.right = (wires & PackedBoard.RIGHT) != 0;
+  }
+  
+  // checks if the piece is powered and updates it
+  // this is basically breadth first search
+  public void power(ArrayList<ArrayList<GamePiece>> board) {
+    if (this.powerStation) {
+      this.powered = true;
+    }
+    if (this.powered) {
+      // go up
+      // checks for: the piece can go up, this piece points up, 
+      // upper piece points down, upper piece is not powered
+      if (row > 0 && this.top && board.get(row - 1).get(col).bottom 
+          && !board.get(row - 1).get(col).powered) {
+        board.get(row - 1).get(col).powered = true;
+        board.get(row - 1).get(col).power(board);
+      }
+      // go down
+      // checks for: the piece can go down, this piece points down, 
+      // lower piece points up, lower piece is not powered
+      if (row < board.size() - 1 && this.bottom && board.get(row + 1).get(col).top 
+          && !board.get(row + 1).get(col).powered) {
+        board.get(row + 1).get(col).powered = true;
+        board.get(row + 1).get(col).power(board);
+      }
+      // go left
+      // checks for: the piece can go left, this piece points left, 
+      // left piece points right, left piece is not powered
+      if (col > 0 && this.left && board.get(row).get(col - 1).right
+          && !board.get(row).get(col - 1).powered) {
+        board.get(row).get(col - 1).powered = true;
+        board.get(row).get(col - 1).power(board);
+      }
+      // go right
+      // checks for: the piece can go right, this piece points right, 
+      // right piece points left, right piece is not powered
+      if (col < board.get(0).size() - 1 && this.right && board.get(row).get(col + 1).left
+          && !board.get(row).get(col + 1).powered) {
+        board.get(row).get(col + 1).powered = true;
+        board.get(row).get(col + 1).power(board);
+      }
+    }
+  }
+  
+  // creates a CartPt to represent coordinates
+  public CartPt pointCoords() {
+    return new CartPt(col, row);
+  }
+  
+  // copies the tile at the given index of the given packed board into this GamePiece
+  public void copyFrom(PackedBoard b, int tile) {
+    this.top = b.has(tile, PackedBoard.TOP);
+    this.left = b.has(tile, PackedBoard.LEFT);
+    this.bottom = b.has(tile, PackedBoard.BOTTOM);
+    this.right = b.has(tile, PackedBoard.RIGHT);
+    this.powerStation = b.has(tile, PackedBoard.STATION);
+    this.powered = b.has(tile, PackedBoard.POWERED);
+  }
+  
+  // packs a list of rows of GamePieces
+  static PackedBoard pack(ArrayList<ArrayList<GamePiece>> pieces) {
+    PackedBoard b = new PackedBoard(pieces.get(0).size(), pieces.size());
+    for (int i = 0; i < b.height; i++) {
+      for (int j = 0; j < b.width; j++) {
+        GamePiece gp = pieces.get(i).get(j);
+        int cell = gp.wires();
+        if (gp.powerStation) {
+          cell |= PackedBoard.STATION;
+        }
+        if (gp.powered) {
+          cell |= PackedBoard.POWERED;
+        }
+        b.cells[b.index(i, j)] = (byte) cell;
+      }
+    }
+    return b;
+  }
+  
+}
@@ -0,0 +1,190 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// hosts many games at once over TCP on localhost, one virtual thread per connection
+// each connection plays its own game, which only its thread ever touches,
+// so games need no locks; the only shared state is a few counters
+// the protocol is one line per request and one line per response:
+//   NEW width height [seed]   starts a new game            OK
+//   ROTATE row col            rotates a tile               OK rotated clicks solved
+//   BATCH row col turns ...   rotates many tiles at once   OK rotated clicks solved
+//   MOVE LEFT|RIGHT|UP|DOWN   moves the power station      OK moved clicks solved
+//   TICK                      counts a tick                OK ticks
+//   RESTART                   starts again on a new board  OK
+//   STATE                     describes the game           OK width height powerRow powerCol
+//                                                             clicks ticks bestScore solved cells
+//   QUIT                      closes the connection        OK
+// where rotated, moved and solved are 0 or 1 and cells are the board's bytes in hex,
+// two digits per tile in row-major order; bad requests get ERR and a message
+// runs with java GameServer [port], listening on 7777 by default
+class GameServer {
+  // the largest width or height of a board a game can have
+  static final int MAX_SIZE = 1000;
+
+  ServerSocket socket;
+  // runs each connection on a virtual thread of its own
+  ExecutorService connections;
+  // how many games are being played, and how many requests have been answered
+  AtomicInteger sessions;
+  AtomicLong requests;
+  // the thread accepting connections
+  Thread acceptor;
+
+  // starts listening on localhost on the given port, or any free port if it is 0
+  // throws an IOException if the port cannot be listened on
+  GameServer(int port) throws IOException {
+    this.socket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+    this.connections = Executors.newVirtualThreadPerTaskExecutor();
+    this.sessions = new AtomicInteger();
+    this.requests = new AtomicLong();
+    this.acceptor = Thread.ofVirtual().name("accept").start(new ServerAccept(this));
+  }
+
+  // serves games until the process is killed
+  public static void main(String[] args) throws IOException, InterruptedException {
+    GameServer server = new GameServer(args.length > 0 ? Integer.parseInt(args[0]) : 7777);
+    System.out.println("Serving LightEmAll on port " + server.port());
+    // virtual threads do not keep the process alive by themselves
+    server.acceptor.join();
+  }
+
+  // the port the server listens on
+  public int port() {
+    return socket.getLocalPort();
+  }
+
+  // stops accepting connections and closes the ones that are open
+  public void close() throws IOException {
+    socket.close();
+    connections.shutdownNow();
+  }
+
+  // the response to the given request on the given connection's game,
+  // which may be replaced by a new one
+  // bad requests get an error response rather than an exception
+  static String answer(GameSession session, String request) {
+    String[] words = request.trim().split("\\s+");
+    String command = words[0].toUpperCase();
+    try {
+      if (command.equals("NEW") && (words.length == 3 || words.length == 4)) {
+        int width = Integer.parseInt(words[1]);
+        int height = Integer.parseInt(words[2]);
+        if (width < 1 || height < 1 || width > MAX_SIZE || height > MAX_SIZE) {
+          return "ERR Board sizes must be between 1 and " + MAX_SIZE;
+        }
+        long seed = words.length == 4 ? Long.parseLong(words[3])
+            : new SplittableRandom().nextLong();
+        session.game = new GameEngine(width, height, 0, new KruskalGenerator(), seed);
+        return "OK";
+      }
+      if (command.equals("QUIT") && words.length == 1) {
+        return "OK";
+      }
+      GameEngine game = session.game;
+      if (game == null) {
+        return "ERR No game, start one with NEW";
+      }
+      if (command.equals("ROTATE") && words.length == 3) {
+        boolean rotated = game.rotate(Integer.parseInt(words[1]), Integer.parseInt(words[2]));
+        return "OK " + (rotated ? 1 : 0) + " " + game.clicks + " " + (game.isSolved() ? 1 : 0);
+      }
+      if (command.equals("BATCH") && words.length > 1 && words.length % 3 == 1) {
+        int count = words.length / 3;
+        int[] tiles = new int[count];
+        int[] turns = new int[count];
+        for (int i = 0; i < count; i++) {
+          int row = Integer.parseInt(words[3 * i + 1]);
+          int col = Integer.parseInt(words[3 * i + 2]);
+          // a tile off the board makes the engine turn down the whole batch
+          tiles[i] = row < 0 || row >= game.height || col < 0 || col >= game.width ? -1
+              : game.packed.index(row, col);
+          turns[i] = Integer.parseInt(words[3 * i + 3]);
+        }
+        boolean rotated = game.rotateAll(tiles, turns, count);
+        return "OK " + (rotated ? 1 : 0) + " " + game.clicks + " " + (game.isSolved() ? 1 : 0);
+      }
+      if (command.equals("MOVE") && words.length == 2) {
+        int way = GameServer.way(words[1].toUpperCase());
+        if (way == 0) {
+          return "ERR Unknown direction " + words[1];
+        }
+        boolean moved = game.moveStation(way);
+        return "OK " + (moved ? 1 : 0) + " " + game.clicks + " " + (game.isSolved() ? 1 : 0);
+      }
+      if (command.equals("TICK") && words.length == 1) {
+        game.tick();
+        return "OK " + game.ticks;
+      }
+      if (command.equals("RESTART") && words.length == 1) {
+        game.restart();
+        return "OK";
+      }
+      if (command.equals("STATE") && words.length == 1) {
+        return GameServer.state(game);
+      }
+    }
+    catch (NumberFormatException e) {
+      return "ERR Not a number in " + request.trim();
+    }
+    return "ERR Unknown request " + request.trim();
+  }
+
+  // the wire bit of the given direction, or 0 if it is not one
+  static int way(String direction) {
+    if (direction.equals("LEFT")) {
+      return PackedBoard.LEFT;
+    }
+    if (direction.equals("RIGHT")) {
+      return PackedBoard.RIGHT;
+    }
+    if (direction.equals("UP")) {
+      return PackedBoard.TOP;
+    }
+    if (direction.equals("DOWN")) {
+      return PackedBoard.BOTTOM;
+    }
+    return 0;
+  }
+
+  // the response to STATE for the given game
+  static String state(GameEngine game) {
+    StringBuilder result = new StringBuilder("OK ");
+    result.append(game.width).append(' ').append(game.height).append(' ')
+        .append(game.powerRow).append(' ').append(game.powerCol).append(' ')
+        .append(game.clicks).append(' ').append(game.ticks).append(' ')
+        .append(game.bestScore).append(' ').append(game.isSolved() ? 1 : 0).append(' ');
+    for (byte cell : game.packed.cells) {
+      result.append(Character.forDigit((cell >> 4) & 15, 16))
+          .append(Character.forDigit(cell & 15, 16));
+    }
+    return result.toString();
+  }
+
+}
+
+// accepts connections until the server closes, handing each to a virtual thread
+class ServerAccept implements Runnable {
+  GameServer server;
+
+  ServerAccept(GameServer server) {
+    this.server = server;
+  }
+
+  public void run() {
+    try {
+      while (true) {
+        server.connections.execute(new GameSession(server, server.socket.accept()));
+      }
+    }
+    catch (IOException e) {
+      // the server socket was closed
+    }
+  }
+
+}
@@ -0,0 +1,51 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+// one connection to the server and the game it plays
+class GameSession implements Runnable {
+  GameServer server;
+  Socket socket;
+  // the game being played, or null until the first NEW
+  GameEngine game;
+
+  GameSession(GameServer server, Socket socket) {
+    this.server = server;
+    this.socket = socket;
+    this.game = null;
+  }
+
+  // answers requests until the client quits or disconnects
+  public void run() {
+    server.sessions.incrementAndGet();
+    try (Socket s = socket) {
+      s.setTcpNoDelay(true);
+      BufferedReader in = new BufferedReader(
+          new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+      Writer out = new BufferedWriter(
+          new OutputStreamWriter(s.getOutputStream(), StandardCharsets.US_ASCII));
+      String request = in.readLine();
+      while (request != null) {
+        String response = GameServer.answer(this, request);
+        server.requests.incrementAndGet();
+        out.write(response);
+        out.write('\n');
+        out.flush();
+        if (request.trim().equalsIgnoreCase("QUIT")) {
+          break;
+        }
+        request = in.readLine();
+      }
+    }
+    catch (IOException e) {
+      // the client went away
+    }
+    server.sessions.decrementAndGet();
+  }
+
+}
@@ -0,0 +1,83 @@
+import java.util.SplittableRandom;
+
+// a new board, before anyone has played it:
+// its wires, scrambled, the tree they form when solved, and where the station is
+class GeneratedBoard {
+  // the seed the board was generated from
+  long seed;
+  PackedBoard packed;
+  GridEdges tree;
+  int powerRow;
+  int powerCol;
+  
+  // a board made of the given parts
+  GeneratedBoard(long seed, PackedBoard packed, GridEdges tree, int powerRow, int powerCol) {
+    this.seed = seed;
+    this.packed = packed;
+    this.tree = tree;
+    this.powerRow = powerRow;
+    this.powerCol = powerCol;
+  }
+  
+  // a board of the given tiles, with the station at the given row and column, whose tree
+  // is the wires of the tiles as given, found by a breadth-first search from the station
+  // over connected wires, or empty if they don't connect every tile
+  // it was not generated from a seed, so its seed is 0
+  GeneratedBoard(PackedBoard packed, int powerRow, int powerCol) {
+    this(0, packed, new GridEdges(Math.max(packed.cells.length - 1, 0)), powerRow, powerCol);
+    int station = packed.index(powerRow, powerCol);
+    packed.set(station, PackedBoard.STATION);
+    boolean[] seen = new boolean[packed.cells.length];
+    int[] queue = new int[packed.cells.length];
+    int tail = 0;
+    seen[station] = true;
+    queue[tail++] = station;
+    for (int head = 0; head < tail; head++) {
+      int tile = queue[head];
+      for (int dir = 1; dir <= packed.wireMask; dir <<= 1) {
+        if (packed.connected(tile, dir) && !seen[packed.neighbor(tile, dir)]) {
+          int other = packed.neighbor(tile, dir);
+          seen[other] = true;
+          queue[tail++] = other;
+          tree.add(tile, other, 0);
+        }
+      }
+    }
+    if (tail < packed.cells.length) {
+      tree.count = 0;
+    }
+  }
+  
+  // generates a board from the given seed with the given generator
+  // bias is between -1 and 1: 0 is no bias, the closer to 1 the more
+  // horizontal wires there are, the closer to -1 the more vertical wires
+  GeneratedBoard(int width, int height, double bias, IMazeGenerator generator, long seed) {
+    this(PackedBoard.GRID, width, height, bias, generator, seed);
+  }
+  
+  // generates a board laid out as the given topology from the given seed,
+  // with the generator walking the board's neighbors
+  GeneratedBoard(ITopology topology, int width, int height, double bias, 
+      IMazeGenerator generator, long seed) {
+    SplittableRandom boardRand = new SplittableRandom(seed);
+    this.seed = seed;
+    // creates an empty board
+    this.packed = new PackedBoard(width, height, topology);
+    // sets a powerStation
+    this.powerRow = boardRand.nextInt(height);
+    this.powerCol = boardRand.nextInt(width);
+    packed.set(packed.index(powerRow, powerCol), PackedBoard.STATION);
+    // create MST
+    this.tree = generator.generate(packed, bias, boardRand.split());
+    // change board based on MST
+    for (int e = 0; e < tree.count; e++) {
+      packed.connect(tree.from[e], tree.to[e]);
+    }
+    // scramble the board
+    for (int tile = 0; tile < packed.cells.length; tile++) {
+      // rotates each piece a random number of times, less than a full turn
+      packed.rotate(tile, boardRand.nextInt(packed.directions));
+    }
+  }
+  
+}
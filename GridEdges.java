@@ -0,0 +1,83 @@
+import java.util.SplittableRandom;
+
+// represents a list of edges between tiles (in row-major order) as parallel arrays
+// of the two tiles each edge joins and its weight
+class GridEdges {
+  // random weights are in [0, MAX_WEIGHT)
+  static final int MAX_WEIGHT = 60;
+  
+  int[] from;
+  int[] to;
+  int[] weight;
+  int count;
+  
+  // creates an empty list of edges with room for the given number of edges
+  GridEdges(int capacity) {
+    this.from = new int[capacity];
+    this.to = new int[capacity];
+    this.weight = new int[capacity];
+    this.count = 0;
+  }
+  
+  // creates every edge of a width by height grid exactly once, with random weights
+  // bias is between -1 and 1:
+  // a positive bias makes vertical edges heavier and so less likely to be in an MST,
+  // a negative bias does the same for horizontal edges
+  // biased weights are drawn from [MAX_WEIGHT * |bias|, MAX_WEIGHT) directly
+  GridEdges(int width, int height, double bias, SplittableRandom rand) {
+    this(Math.max(width - 1, 0) * height + Math.max(height - 1, 0) * width);
+    int horizontalLeast = GridEdges.leastWeight(bias, true);
+    int verticalLeast = GridEdges.leastWeight(bias, false);
+    
+    for (int row = 0; row < height; row++) {
+      for (int col = 0; col < width; col++) {
+        int tile = row * width + col;
+        // the edge to the right, if not rightmost column
+        if (col < width - 1) {
+          this.add(tile, tile + 1, 
+              horizontalLeast + rand.nextInt(MAX_WEIGHT - horizontalLeast));
+        }
+        // the edge below, if not bottom row
+        if (row < height - 1) {
+          this.add(tile, tile + width, 
+              verticalLeast + rand.nextInt(MAX_WEIGHT - verticalLeast));
+        }
+      }
+    }
+  }
+  
+  // creates every edge between neighboring tiles of the given board exactly once,
+  // with random weights biased as above, where edges within a row are horizontal
+  // each tile has an edge along the second half of its wires, whose opposites are the first
+  GridEdges(PackedBoard b, double bias, SplittableRandom rand) {
+    this(b.cells.length * (b.directions / 2));
+    int horizontalLeast = GridEdges.leastWeight(bias, true);
+    int verticalLeast = GridEdges.leastWeight(bias, false);
+    for (int tile = 0; tile < b.cells.length; tile++) {
+      for (int k = b.directions / 2; k < b.directions; k++) {
+        int other = b.neighbor(tile, 1 << k);
+        if (other != -1) {
+          int least = other / b.width == tile / b.width ? horizontalLeast : verticalLeast;
+          this.add(tile, other, least + rand.nextInt(MAX_WEIGHT - least));
+        }
+      }
+    }
+  }
+  
+  // the least random weight an edge going the given way may have with the given bias
+  static int leastWeight(double bias, boolean horizontal) {
+    if (horizontal ? bias >= 0 : bias <= 0) {
+      return 0;
+    }
+    return Math.min((int) (MAX_WEIGHT * Math.abs(bias)), MAX_WEIGHT - 1);
+  }
+  
+  // adds an edge
+  void add(int from, int to, int weight) {
+    this.from[count] = from;
+    this.to[count] = to;
+    this.weight[count] = weight;
+    this.count++;
+  }
+  
+}
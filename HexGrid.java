@@ -0,0 +1,36 @@
+// hexagonal tiles with pointy tops, in rows where every odd row is shifted half a tile
+// to the right, with wires to the upper right, upper left, left, lower left,
+// lower right and right
+class HexGrid implements ITopology {
+  // the wire bits, in counterclockwise order
+  static final int UP_RIGHT = 1;
+  static final int UP_LEFT = 2;
+  static final int LEFT = 4;
+  static final int DOWN_LEFT = 8;
+  static final int DOWN_RIGHT = 16;
+  static final int RIGHT = 32;
+  
+  // how each wire moves along rows, and along columns from even and from odd rows
+  static final int[] ROW_STEPS = {-1, -1, 0, 1, 1, 0};
+  static final int[] EVEN_COL_STEPS = {0, -1, -1, -1, 0, 1};
+  static final int[] ODD_COL_STEPS = {1, 0, -1, 0, 1, 1};
+  
+  public int directions() {
+    return 6;
+  }
+  
+  public int step(int width, int height, int row, int col, int k) {
+    int r = row + ROW_STEPS[k];
+    int c = col + (row % 2 == 0 ? EVEN_COL_STEPS[k] : ODD_COL_STEPS[k]);
+    return r < 0 || r >= height || c < 0 || c >= width ? -1 : r * width + c;
+  }
+  
+  public boolean fits(int width, int height) {
+    return width >= 0 && height >= 0;
+  }
+  
+  public String name() {
+    return "hex grid";
+  }
+  
+}
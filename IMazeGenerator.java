@@ -0,0 +1,13 @@
+import java.util.SplittableRandom;
+
+// represents a way of laying out the wires of a new board
+interface IMazeGenerator {
+  // picks the edges of a spanning tree of a width by height grid,
+  // leaning towards horizontal or vertical edges by the given bias (see GridEdges)
+  GridEdges generate(int width, int height, double bias, SplittableRandom rand);
+  
+  // picks the edges of a spanning tree of the given board's tiles along its topology,
+  // biased the same way, where edges within a row are horizontal
+  // a square grid gets the same tree as above from the same random numbers
+  GridEdges generate(PackedBoard b, double bias, SplittableRandom rand);
+}
@@ -0,0 +1,17 @@
+// how the tiles of a board are laid out: which tile is next to which along each wire
+// wire k of a tile is the bit 1 << k, and wires go counterclockwise,
+// so the wire pointing back is half way around and turning a tile is a shift
+interface ITopology {
+  // how many wires a tile can have
+  int directions();
+  
+  // the tile next to the tile at the given row and column of a width by height board
+  // along wire k, or -1 if there is none
+  int step(int width, int height, int row, int col, int k);
+  
+  // whether a width by height board can be laid out this way
+  boolean fits(int width, int height);
+  
+  // what this layout is called
+  String name();
+}
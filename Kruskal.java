@@ -0,0 +1,79 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+
+// represents/executes kruskal's algorithm
+class Kruskal {
+  // coordinates of edges
+  ArrayList<CartPt> nodeCoords;
+  // arraylist of edges
+  ArrayList<Edge> edgeList;
+  // representatives for the edges
+  HashMap<CartPt, CartPt> representatives;
+  
+  Kruskal(ArrayList<CartPt> nodeCoords, ArrayList<Edge> edgeList) {
+    this.nodeCoords = nodeCoords;
+    
+    //sorts the list of edges by weight
+    edgeList.sort(new WeightComparator());
+    this.edgeList = edgeList;
+    
+    // initializes representatives to reference itself
+    this.representatives = new HashMap<CartPt, CartPt>();
+    for (CartPt p : nodeCoords) {
+      representatives.put(p, p);
+    }
+    
+  }
+  
+  // runs kruskal's algorithm
+  public ArrayList<Edge> run() {
+    
+    // the tree that will contain all the edges and be returned in the end
+    ArrayList<Edge> tree = new ArrayList<Edge>();
+    
+    // makes sure there are multiple edges so a tree can actually be made
+    // runs through the edgeList until there are no edges left to add
+    while (representatives.size() > 1 && !(edgeList.isEmpty())) {
+      Edge next = edgeList.remove(0);
+      
+      // if the pointCoords of fromNode and the pointCoords of toNode aren't the same
+      // (that is, fromNode and toNode aren't the exact same node) 
+      // add them to the tree
+      if (!(this.find(next.fromNode.pointCoords()).equals(this.find(next.toNode.pointCoords())))) {
+        tree.add(next);
+        // joins the two nodes together
+        this.join(next.fromNode, next.toNode);
+      }
+    }
+    // returns the completed tree
+    return tree;
+  }
+  
+  // joins two GamePieces together if they have same representative
+  public void join(GamePiece left, GamePiece right) {
+    representatives.put(this.find(left.pointCoords()), this.find(right.pointCoords()));
+  }
+  
+  // finds the representative given a CartPt and updates it
+  public CartPt find(CartPt pieceCord) {
+    CartPt proxy = representatives.get(pieceCord);
+    // if the CartPt given doesn't correspond to proxy
+    // adds the CartPt to the representatives hash where proxy is
+    if (!(proxy.equals(pieceCord))) {
+      representatives.put(pieceCord, find(proxy));
+    }
+    return representatives.get(pieceCord);
+  }
+  
+}
+
+// compares two edges by weight
+class WeightComparator implements Comparator<Edge> {
+  
+  //compares two edges weights
+  public int compare(Edge edge1, Edge edge2) {
+    return edge1.weight - edge2.weight;
+  }
+  
+}
@@ -0,0 +1,31 @@
+import java.util.SplittableRandom;
+
+// lays out a board as the MST of randomly weighted edges, found with kruskal's algorithm
+class KruskalGenerator implements IMazeGenerator {
+  
+  // runs kruskal's algorithm over every edge of the grid
+  public GridEdges generate(int width, int height, double bias, SplittableRandom rand) {
+    return KruskalGenerator.spanningTree(new GridEdges(width, height, bias, rand), 
+        width * height);
+  }
+  
+  // runs kruskal's algorithm over every pair of neighboring tiles of the board
+  public GridEdges generate(PackedBoard b, double bias, SplittableRandom rand) {
+    if (b.topology instanceof SquareGrid) {
+      return this.generate(b.width, b.height, bias, rand);
+    }
+    return KruskalGenerator.spanningTree(new GridEdges(b, bias, rand), b.cells.length);
+  }
+  
+  // the minimum spanning tree of the given edges between the given number of tiles
+  static GridEdges spanningTree(GridEdges edges, int tiles) {
+    int[] picked = new BucketKruskal(tiles).run(edges.from, edges.to, edges.weight, 
+        edges.count, GridEdges.MAX_WEIGHT);
+    GridEdges tree = new GridEdges(picked.length);
+    for (int e : picked) {
+      tree.add(edges.from[e], edges.to[e], edges.weight[e]);
+    }
+    return tree;
+  }
+  
+}
@@ -1,77 +1,84 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
 import tester.*;
 import javalib.impworld.*;
 import java.awt.Color;
 import javalib.worldimages.*;
 
-// represents the whole game
+// draws a game of LightEmAll and lets a person play it,
+// leaving the rules to its GameEngine
 class LightEmAll extends World {
   
-  // a list of columns of GamePieces,
-  // i.e., represents the board in column-major order
+  // the game being played
+  GameEngine engine;
+  
+  // a list of rows of GamePieces mirroring the engine's board, used for drawing;
+  // only kept while the board is small enough to draw, otherwise null
   ArrayList<ArrayList<GamePiece>> board;
   
-  // a list of all nodes
+  // a list of all nodes, in row-major order,
+  // and a list of edges of the minimum spanning tree between them;
+  // like board, only kept while the board is small enough to draw
   ArrayList<GamePiece> nodes;
-  
-  // a list of edges of the minimum spanning tree
   ArrayList<Edge> mst;
   
-  // the width and height of the board
+  // the width and height of the board, as drawn
   int width;
   int height;
   
-  // the current location of the power station,
-  // as well as its effective radius
-  int powerRow;
-  int powerCol;
-  int radius;
-  
   // how big a cell will be when drawn
   int cellsize;
   
-  // keeps track of clicks
-  int clicks;
+  // the images of every kind of tile at the current cellsize
+  TileImageCache tileImages;
   
-  // keeps track of time in ticks
-  int ticks;
+  // the last frame drawn, if frames are only redrawn where the board changed,
+  // otherwise null
+  RetainedScene retained;
+  
+  // creates a new LightEmAll
+  // bias is between -1 and 1: 0 is no bias, the closer to 1 the more
+  // horizontal wires there are, the closer to -1 the more vertical wires
+  LightEmAll(int width, int height, double bias) {
+    this(width, height, bias, new KruskalGenerator());
+  }
   
-  // keeps track of the best score (clicks * secs)
-  int bestScore;
+  // creates a new LightEmAll whose boards are laid out by the given generator
+  LightEmAll(int width, int height, double bias, IMazeGenerator generator) {
+    this(width, height, bias, generator, new SplittableRandom().nextLong());
+  }
   
+  // creates a new LightEmAll whose first board is generated from the given seed,
+  // so two games with the same arguments play out the same boards
+  LightEmAll(int width, int height, double bias, IMazeGenerator generator, long seed) {
+    this(new GameEngine(width, height, bias, generator, seed));
+  }
   
-  // creates a new LightEmAll
-  LightEmAll(int width, int height, int bias) {
-    this.width = width;
-    this.height = height;
-    Random r = new Random();
-    this.powerRow = r.nextInt(height);
-    this.powerCol = r.nextInt(width);
-    this.radius = Math.max(width / 2, height / 2);
-    board = new ArrayList<ArrayList<GamePiece>>();
-    this.boardInit(bias);
+  // creates a LightEmAll playing the given game
+  LightEmAll(GameEngine engine) {
+    this.engine = engine;
+    this.width = engine.width;
+    this.height = engine.height;
+    this.tileImages = new TileImageCache();
+    this.viewInit();
+    this.mst = this.edgeList(engine.tree);
     this.cellsize = this.cellSizeInit();
-    this.clicks = 0;
-    this.ticks = 0;
-    this.nodes = new ArrayList<GamePiece>();
-    this.mst = new ArrayList<Edge>();
-    
-    // sets bestScore to a default of 1000
-    this.bestScore = 1000;
   }
   
-  // test constructor
+  // test constructor: plays the given pieces, with the station at the given column and row
   LightEmAll(ArrayList<ArrayList<GamePiece>> alg, int powerX, int powerY) {
-    this(alg.get(0).size(), alg.size(), 0);
+    this(new GameEngine(new GeneratedBoard(GamePiece.pack(alg), powerY, powerX), 
+        new KruskalGenerator()));
     this.board = alg;
     this.cellsize = 70;
-    this.powerRow = powerY;
-    this.powerCol = powerX;
-    board.get(powerY).get(powerX).powerStation = true;
+    // like the pieces given, the board is not powered until asked to be
+    engine.unpower();
+    this.syncView();
   }
   
   // scales cellsize
@@ -84,15 +91,51 @@ class LightEmAll extends World {
     return wideCell;
   }
   
-  // draws the board
+  // draws the board as it is, without changing anything
   @Override
   public WorldScene makeScene() {
+    long start = engine.metrics.start();
+    WorldScene scene = this.drawScene();
+    engine.metrics.stop(GameMetrics.SCENE, start);
+    return scene;
+  }
+  
+  // draws the board as it is, from scratch unless scenes are retained
+  public WorldScene drawScene() {
+    if (retained != null) {
+      return retained.scene(this);
+    }
     WorldScene world = new WorldScene(cellsize * (width + 2), cellsize * (height + 3));
     
+    this.drawButtons(world);
+    
+    // draws each cell
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        world.placeImageXY(tileImages.image(engine.packed.cells[engine.packed.index(i, j)], 
+            cellsize), 
+            cellsize * j + 3 * cellsize / 2, cellsize * i + 5 * cellsize / 2);
+      }
+    }
+    this.drawWin(world);
+    
+    return world;
+    
+  }
+  
+  // from now on only redraws the rows of tiles that changed since the last frame,
+  // and hands back the last frame if nothing changed at all
+  public void retainScenes() {
+    this.retained = new RetainedScene();
+  }
+  
+  // draws the clicks, restart and time buttons
+  public void drawButtons(WorldScene world) {
     // draws clicks button
-    world.placeImageXY(new OverlayImage(new TextImage(Integer.toString(this.clicks), cellsize / 2,
-        Color.black), new OverlayImage(new RectangleImage(cellsize, cellsize, OutlineMode.OUTLINE, 
-        Color.black), new RectangleImage(cellsize, cellsize, OutlineMode.SOLID, Color.gray))), 
+    world.placeImageXY(new OverlayImage(new TextImage(Integer.toString(engine.clicks), 
+        cellsize / 2, Color.black), new OverlayImage(new RectangleImage(cellsize, cellsize, 
+            OutlineMode.OUTLINE, Color.black), new RectangleImage(cellsize, cellsize, 
+                OutlineMode.SOLID, Color.gray))), 
         cellsize * (width + 2) / 4, cellsize);
     
     // draws restart button
@@ -112,592 +155,197 @@ class LightEmAll extends World {
     }
     
     // draws time button
-    world.placeImageXY(new OverlayImage(new TextImage(Integer.toString((int)this.ticks), 
+    world.placeImageXY(new OverlayImage(new TextImage(Integer.toString(engine.ticks), 
         cellsize / 2, Color.black), new OverlayImage(new RectangleImage(cellsize, cellsize, 
             OutlineMode.OUTLINE, Color.black), new RectangleImage(cellsize, cellsize, 
                 OutlineMode.SOLID, Color.gray))), 3 * cellsize * (width + 2) / 4, cellsize);
-    
-    // draws each cell
-    for (int i = 0; i < board.size(); i++) {
-      for (int j = 0; j < board.get(i).size(); j++) {
-        if (board.get(i).get(j).powered) {
-          world.placeImageXY(board.get(i).get(j).tileImage(cellsize, 
-              cellsize / 5, Color.yellow, false), cellsize * j + 3 * cellsize / 2, 
-              cellsize * i + 5 * cellsize / 2);
-        }
-        else {
-          world.placeImageXY(board.get(i).get(j).tileImage(cellsize, 
-              cellsize / 5, Color.gray, false), cellsize * j + 3 * cellsize / 2, 
-              cellsize * i + 5 * cellsize / 2);
-        }
-      }
-    }
-    // updates power every tick
-    board.get(powerRow).get(powerCol).power(board);
-    
-    // if win
+  }
+  
+  // draws the win message if the game is won
+  public void drawWin(WorldScene world) {
     if (this.endGame()) {
-      if (this.clicks * this.ticks < this.bestScore) {
-        this.bestScore = this.clicks * this.ticks;
-      }
       world.placeImageXY(new TextImage("You win!", cellsize, Color.green), 
           cellsize * (width + 2) / 2, cellsize * (height + 2) / 3);
-      world.placeImageXY(new TextImage("Score: " + Integer.toString(this.clicks * this.ticks), 
+      world.placeImageXY(new TextImage("Score: " + Integer.toString(engine.score()), 
           2 * cellsize / 3, Color.green), cellsize * (width + 2) / 2, 
           cellsize * (height + 2) / 2);
-      world.placeImageXY(new TextImage("Best Score: " + Integer.toString(this.bestScore), 
+      world.placeImageXY(new TextImage("Best Score: " + Integer.toString(engine.bestScore), 
           cellsize / 2, Color.green), cellsize * (width + 2) / 2, 
           2 * cellsize * (height + 2) / 3);
     }
-    
-    return world;
-    
   }
   
-  // initializes the board
-  public void boardInit(int bias) {
-    // creates an empty board
+  // rebuilds the GamePiece view of the packed board and its nodes,
+  // or drops them if the board is too big to be drawn
+  public void viewInit() {
+    this.nodes = new ArrayList<GamePiece>();
+    if (this.cellSizeInit() == 0) {
+      this.board = null;
+      return;
+    }
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        nodes.add(new GamePiece(false, false, false, false, j, i));
+      }
+    }
+    this.board = new ArrayList<ArrayList<GamePiece>>();
     for (int i = 0; i < height; i++) {
       ArrayList<GamePiece> gparr = new ArrayList<GamePiece>();
       for (int j = 0; j < width; j++) {
         GamePiece gp = new GamePiece(false, false, false, false, j, i);
+        gp.copyFrom(engine.packed, engine.packed.index(i, j));
         gparr.add(gp);
       }
       board.add(gparr);
     }
-    // sets a powerStation
-    board.get(powerRow).get(powerCol).powerStation = true;
-    // create MST
-    this.mst = this.createMST(bias);
-    // change board based on MST
-    for (Edge e : mst) {
-      GamePiece fromPiece = e.fromNode;
-      GamePiece toPiece = e.toNode;
-      // if fromPiece is to the left of toPiece
-      if (fromPiece.col < toPiece.col) {
-        fromPiece.right = true;
-        toPiece.left = true;
-      }
-      // if fromPiece is to the right of toPiece
-      else if (fromPiece.col > toPiece.col) {
-        fromPiece.left = true;
-        toPiece.right = true;
-      }
-      // if fromPiece is above toPiece
-      else if (fromPiece.row < toPiece.row) {
-        fromPiece.bottom = true;
-        toPiece.top = true;
-      }
-      // if fromPiece is below toPiece
-      else if (fromPiece.row > toPiece.row) {
-        fromPiece.top = true;
-        toPiece.bottom = true;
-      }
-    }
-    // scramble the board
-    for (ArrayList<GamePiece> agp : board) {
-      for (GamePiece gp : agp) {
-        // rotates each piece a random number of times between 0 and 3
-        for (int i = 0; i < new Random().nextInt(4); i++) {
-          gp.rotate();
-        }
+  }
+  
+  // copies the packed board into the GamePiece view, if there is one
+  public void syncView() {
+    if (board == null) {
+      return;
+    }
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        board.get(i).get(j).copyFrom(engine.packed, engine.packed.index(i, j));
       }
     }
   }
   
   // detects where mouse was clicked
   public void onMouseClicked(Posn pos, String buttonName) {
+    long start = engine.metrics.start();
     // reset functionality
     if (pos.y > cellsize / 2 && pos.y < 3 * cellsize / 2
         && pos.x > cellsize * width / 2 + 1 * cellsize / 2
         && pos.x < cellsize * width / 2 + 3 * cellsize / 2) {
       // resets everything
-      this.clicks = 0;
-      this.ticks = 0;
-      this.nodes = new ArrayList<GamePiece>();
-      this.mst = new ArrayList<Edge>();
-      this.board = new ArrayList<ArrayList<GamePiece>>();
-      this.powerRow = new Random().nextInt(height);
-      this.powerCol = new Random().nextInt(width);
-      // sets a random bias
-      this.boardInit(new Random().nextInt(3));
+      engine.restart();
+      this.viewInit();
+      this.mst = this.edgeList(engine.tree);
+      this.powerChanged();
     }
     // check to make sure not out of bounds
     if (!this.endGame() && (pos.x >= cellsize || pos.y >= 2 * cellsize)) {
       int x = (pos.x - cellsize) / cellsize;
       int y = (pos.y - 2 * cellsize) / cellsize;
-      // checks to make sure a tile was clicked and if so clicks the tile
-      if (x >= 0 && x < board.get(0).size() 
-          && y >= 0 && y < board.size() && buttonName.equals("LeftButton")) {
-        board.get(y).get(x).rotate();
+      // clicks the tile if a tile was clicked, otherwise just counts the click
+      if (buttonName.equals("LeftButton") && engine.rotate(y, x)) {
+        this.syncView();
+        this.tileChanged(engine.packed.index(y, x));
+        this.powerChanged();
       }
-      clicks++;
-    }
-    // updates board to be not powered at all to acknowledge changes
-    for (ArrayList<GamePiece> agp : board) {
-      for (GamePiece gp : agp) {
-        gp.powered = false;
+      else {
+        engine.miss();
       }
     }
-    // updates power
-    board.get(powerRow).get(powerCol).power(board);
+    engine.metrics.stop(GameMetrics.MOUSE, start);
   }
   
   // moves the power station
   public void onKeyEvent(String key) {
-    if (!this.endGame()) {
-      GamePiece powerPiece = board.get(powerRow).get(powerCol);
-      int powRow = powerRow;
-      int powCol = powerCol;
-      if (key.equals("left") && powerCol - 1 >= 0 && powerPiece.left
-          && board.get(powerRow).get(powerCol - 1).right) {
-        powCol = powerCol - 1;
-      }
-      if (key.equals("right") && powerCol + 1 < width && powerPiece.right
-          && board.get(powerRow).get(powerCol + 1).left) {
-        powCol = powerCol + 1;
-      }
-      if (key.equals("up") && powerRow - 1 >= 0 && powerPiece.top
-          && board.get(powerRow - 1).get(powerCol).bottom) {
-        powRow = powerRow - 1;
-      }
-      if (key.equals("down") && powerRow + 1 < width && powerPiece.bottom
-          && board.get(powerRow + 1).get(powerCol).top) {
-        powRow = powerRow + 1;
-      }
-      powerPiece.powerStation = false;
-      board.get(powRow).get(powCol).powerStation = true;
-      this.powerRow = powRow;
-      this.powerCol = powCol;
-      clicks++;
+    long start = engine.metrics.start();
+    int station = engine.packed.index(engine.powerRow, engine.powerCol);
+    int way = 0;
+    if (key.equals("left")) {
+      way = PackedBoard.LEFT;
     }
-    // updates board to be not powered at all to acknowledge changes
-    for (ArrayList<GamePiece> agp : board) {
-      for (GamePiece gp : agp) {
-        gp.powered = false;
-      }
+    if (key.equals("right")) {
+      way = PackedBoard.RIGHT;
     }
-    // updates power
-    board.get(powerRow).get(powerCol).power(board);
-  }
-  
-  // checks if the game should end
-  public boolean endGame() {
-    for (int i = 0; i < board.size(); i++) {
-      for (int j = 0; j < board.get(i).size(); j++) {
-        if (!board.get(i).get(j).powered) {
-          return false;
-        }
-      }
+    if (key.equals("up")) {
+      way = PackedBoard.TOP;
     }
-    return true;
-  }
-  
-  // creates an MST to draw the board with a bias
-  public ArrayList<Edge> createMST(int bias) {
-    
-    // if bias = 0, no bias
-    // if bias = 1, horizontal bias
-    // if bias = 2, vertical bias
-    
-    ArrayList<Edge> edges = new ArrayList<Edge>();
-    ArrayList<CartPt> coords = new ArrayList<CartPt>();
-    
-    for (int col = 0; col < width; col = col + 1) {
-      for (int row = 0; row < height; row = row + 1) {
-        GamePiece currentPiece = board.get(col).get(row);
-        int weight = new Random().nextInt(60);
-        // if not top row adds a downwards edge with a random weight to edges
-        if (row > 0) {
-          // if bias is vertical
-          if (bias == 2) {
-            while (weight < 20) {
-              weight = new Random().nextInt(60);
-            }
-          }
-          
-          edges.add(new Edge(currentPiece, board.get(col).get(row - 1), weight));
-        }
-        // if not bottom row adds a upwards edge with a random weight to edges
-        if (row < height - 1) {
-          // if bias is vertical
-          if (bias == 2) {
-            while (weight < 20) {
-              weight = new Random().nextInt(60);
-            }
-          }
-          
-          edges.add(new Edge(currentPiece, board.get(col).get(row + 1), weight));
-        }
-        // if not leftmost column adds a leftwards edge with a random weight to edges
-        if (col > 0) {
-          // if bias is horizontal
-          if (bias == 1) {
-            while (weight < 20) {
-              weight = new Random().nextInt(60);
-            }
-          }
-          
-          edges.add(new Edge(currentPiece, board.get(col - 1).get(row), weight));
-        }
-        // if not rightmost column adds a rightwards edge with a random weight to edges
-        if (col < width - 1) {
-          // if bias is horizontal
-          if (bias == 1) {
-            while (weight < 20) {
-              weight = new Random().nextInt(60);
-            }
-          }
-          
-          edges.add(new Edge(currentPiece, board.get(col + 1).get(row), weight));
-        }
-        
-        // adds the coords of this node to coords
-        coords.add(new CartPt(row, col));
-      }
+    if (key.equals("down")) {
+      way = PackedBoard.BOTTOM;
     }
-    
-    // run kruskal's algorithm to make a new mst
-    return new Kruskal(coords, edges).run();
-  }
-  
-  // increments ticks
-  public void onTick() {
-    if (!this.endGame()) {
-      this.ticks++;
+    if (engine.moveStation(way)) {
+      this.syncView();
+      this.tileChanged(station);
+      this.tileChanged(engine.packed.index(engine.powerRow, engine.powerCol));
+      this.powerChanged();
     }
+    engine.metrics.stop(GameMetrics.KEY, start);
   }
-  
-}
 
-// represents a game piece
-class GamePiece {
-  
-  // coordinates
-  int row;
-  int col;
-  
-  // whether this GamePiece is connected to the
-  // adjacent left, right, top, or bottom pieces
-  boolean left;
-  boolean right;
-  boolean top;
-  boolean bottom;
-  
-  // whether the power station is on this piece
-  boolean powerStation;
-  boolean powered;
-  
-  // initializes a random GamePiece that does not have the power station
-  GamePiece(int x, int y) {
-    this(new Random().nextBoolean(), new Random().nextBoolean(), 
-        new Random().nextBoolean(), new Random().nextBoolean(), x, y);
-    // makes sure the GamePiece has at least one connection piece
-    while (!left && !right && !top && !bottom) {
-      this.left = new Random().nextBoolean();
-      this.right = new Random().nextBoolean();
-      this.top = new Random().nextBoolean();
-      this.bottom = new Random().nextBoolean();
-    }
-  }
-  
-  // initializes a GamePiece with given values and powered and powerStation set to false
-  GamePiece(boolean left, boolean right, boolean top, boolean bottom, int col, int row) {
-    this(left, right, top, bottom, col, row, false);
-  }
-  
-  // initializes a GamePiece that can also change powered and powerStation
-  GamePiece(boolean left, boolean right, boolean top, boolean bottom, int col, int row, 
-      boolean powerStation) {
-    this.left = left;
-    this.right = right;
-    this.top = top;
-    this.bottom = bottom;
-    this.powerStation = powerStation;
-    this.powered = false;
-    this.col = col;
-    this.row = row;
-  }
-  
-  // Generate an image of this, the given GamePiece.
-  // - size: the size of the tile, in pixels
-  // - wireWidth: the width of wires, in pixels
-  // - wireColor: the Color to use for rendering wires on this
-  // - hasPowerStation: if true, draws a fancy star on this tile to represent the power station
-  WorldImage tileImage(int size, int wireWidth, Color wireColor, boolean hasPowerStation) {
-    // Start tile image off as a blue square with a wire-width square in the middle,
-    // to make image "cleaner" (will look strange if tile has no wire, but that can't be)
-    WorldImage image = new OverlayImage(
-        new RectangleImage(wireWidth, wireWidth, OutlineMode.SOLID, wireColor),
-        new RectangleImage(size, size, OutlineMode.SOLID, Color.DARK_GRAY));
-    WorldImage vWire = new RectangleImage(wireWidth, (size + 1) / 2, OutlineMode.SOLID, wireColor);
-    WorldImage hWire = new RectangleImage((size + 1) / 2, wireWidth, OutlineMode.SOLID, wireColor);
-   
-    if (this.top) {
-      image = new OverlayOffsetAlign(AlignModeX.CENTER, AlignModeY.TOP, vWire, 0, 0, image);
-    }
-    if (this.right) {
-      image = new OverlayOffsetAlign(AlignModeX.RIGHT, AlignModeY.MIDDLE, hWire, 0, 0, image);
-    }
-    if (this.bottom) {
-      image = new OverlayOffsetAlign(AlignModeX.CENTER, AlignModeY.BOTTOM, vWire, 0, 0, image);
-    }
-    if (this.left) {
-      image = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.MIDDLE, hWire, 0, 0, image);
-    }
-    if (this.powerStation) {
-      image = new OverlayImage(
-                  new OverlayImage(
-                      new StarImage(size / 3, 7, OutlineMode.OUTLINE, new Color(255, 128, 0)),
-                      new StarImage(size / 3, 7, OutlineMode.SOLID, new Color(0, 255, 255))),
-                  image);
-    }
-    return image;
-  }
-  
-  // rotates the GamePiece 90 degrees counterclockwise
-  public void rotate() {
-    // straight horizontal line -> straight vertical line
-    if (left && right && !top && !bottom) {
-      this.left = false;
-      this.right = false;
-      this.top = true;
-      this.bottom = true;
-    }
-    // straight vertical line -> straight horizontal line
-    else if (!left && !right && top && bottom) {
-      this.left = true;
-      this.right = true;
-      this.top = false;
-      this.bottom = false;
-    }
-    // upwards pointing T shape -> leftwards pointing t shape
-    else if (left && right && top && !bottom) {
-      this.bottom = true;
-      this.right = false;
-    }
-    // downwards pointing T shape -> rightwards pointing t shape
-    else if (left && right && !top && bottom) {
-      this.left = false;
-      this.top = true;
-    }
-    // leftwards pointing T shape -> downwards pointing t shape
-    else if (left && !right && top && bottom) {
-      this.top = false;
-      this.right = true;
-    }
-    // rightwards pointing T shape -> upwards pointing t shape
-    else if (!left && right && top && bottom) {
-      this.left = true;
-      this.bottom = false;
-    }
-    // bottom right corner shape -> top right corner shape
-    else if (left && !right && top && !bottom) {
-      this.top = false;
-      this.bottom = true;
-    }
-    // top right corner shape -> top left corner shape
-    else if (left && !right && !top && bottom) {
-      this.right = true;
-      this.left = false;
-    }
-    // bottom left corner shape -> bottom right corner shape
-    else if (!left && right && top && !bottom) {
-      this.left = true;
-      this.right = false;
-    }
-    // top left corner shape -> bottom left corner shape
-    else if (!left && right && !top && bottom) {
-      this.top = true;
-      this.bottom = false;
-    }
-    // only left -> only bottom
-    else if (left && !right && !top && !bottom) {
-      this.left = false;
-      this.bottom = true;
-    }
-    // only right -> only top
-    else if (!left && right && !top && !bottom) {
-      this.right = false;
-      this.top = true;
-    }
-    // only top -> only left
-    else if (!left && !right && top && !bottom) {
-      this.top = false;
-      this.left = true;
-    }
-    // only bottom -> only right
-    else if (!left && !right && !top && bottom) {
-      this.bottom = false;
-      this.right = true;
-    }
-  }
-  
-  // checks if the piece is powered and updates it
-  // this is basically breadth first search
-  public void power(ArrayList<ArrayList<GamePiece>> board) {
-    if (this.powerStation) {
-      this.powered = true;
-    }
-    if (this.powered) {
-      // go up
-      // checks for: the piece can go up, this piece points up, 
-      // upper piece points down, upper piece is not powered
-      if (row > 0 && this.top && board.get(row - 1).get(col).bottom 
-          && !board.get(row - 1).get(col).powered) {
-        board.get(row - 1).get(col).powered = true;
-        board.get(row - 1).get(col).power(board);
-      }
-      // go down
-      // checks for: the piece can go down, this piece points down, 
-      // lower piece points up, lower piece is not powered
-      if (row < board.size() - 1 && this.bottom && board.get(row + 1).get(col).top 
-          && !board.get(row + 1).get(col).powered) {
-        board.get(row + 1).get(col).powered = true;
-        board.get(row + 1).get(col).power(board);
-      }
-      // go left
-      // checks for: the piece can go left, this piece points left, 
-      // left piece points right, left piece is not powered
-      if (col > 0 && this.left && board.get(row).get(col - 1).right
-          && !board.get(row).get(col - 1).powered) {
-        board.get(row).get(col - 1).powered = true;
-        board.get(row).get(col - 1).power(board);
-      }
-      // go right
-      // checks for: the piece can go right, this piece points right, 
-      // right piece points left, right piece is not powered
-      if (col < board.get(0).size() - 1 && this.right && board.get(row).get(col + 1).left
-          && !board.get(row).get(col + 1).powered) {
-        board.get(row).get(col + 1).powered = true;
-        board.get(row).get(col + 1).power(board);
-      }
-    }
-  }
-  
-  // creates a CartPt to represent coordinates
-  public CartPt pointCoords() {
-    return new CartPt(col, row);
+  // rotates many tiles at once, see GameEngine.rotateAll
+  public boolean rotateAll(int[] tiles, int[] turns, int count) {
+    if (!engine.rotateAll(tiles, turns, count)) {
+      return false;
+    }
+    this.syncView();
+    if (retained != null) {
+      retained.markAll();
+    }
+    return true;
   }
-  
-}
 
-// represents an edge 
-class Edge {
-  GamePiece fromNode;
-  GamePiece toNode;
-  int weight;
-  
-  Edge(GamePiece fromNode, GamePiece toNode, int weight) {
-    this.fromNode = fromNode;
-    this.toNode = toNode;
-    this.weight = weight;
+  // only powers tiles within the engine's radius of the station from now on if limited,
+  // otherwise every tile connected to it
+  public void limitPower(boolean limited) {
+    engine.limitPower(limited);
+    this.syncView();
+    this.powerChanged();
   }
   
-}
-
-// represents a cartesian point
-class CartPt {
-  int x;
-  int y;
-  
-  CartPt(int x, int y) {
-    this.x = x;
-    this.y = y;
+  // recomputes which tiles are powered, returning how many are
+  public int updatePower() {
+    int count = engine.updatePower();
+    this.syncView();
+    this.powerChanged();
+    return count;
   }
   
-  // checks if two CartPts are equal
-  public boolean equals(Object o) {
-    if (!(o instanceof CartPt)) {
-      return false;
+  // tells the retained scene, if there is one, that the given tile changed
+  public void tileChanged(int tile) {
+    if (retained != null) {
+      retained.mark(tile / width);
     }
-    CartPt other = (CartPt) o;
-    return this.x == other.x && this.y == other.y;
-  }
-  
-  // makes a new hashCode so that CartPts with the same x and y 
-  // will be equal
-  public int hashCode() {
-    int result = 200;
-    result = 200 * result + x;
-    result = 200 * result + y;
-    return result;
   }
   
-}
-
-// represents/executes kruskal's algorithm
-class Kruskal {
-  // coordinates of edges
-  ArrayList<CartPt> nodeCoords;
-  // arraylist of edges
-  ArrayList<Edge> edgeList;
-  // representatives for the edges
-  HashMap<CartPt, CartPt> representatives;
-  
-  Kruskal(ArrayList<CartPt> nodeCoords, ArrayList<Edge> edgeList) {
-    this.nodeCoords = nodeCoords;
-    
-    //sorts the list of edges by weight
-    edgeList.sort(new WeightComparator());
-    this.edgeList = edgeList;
-    
-    // initializes representatives to reference itself
-    this.representatives = new HashMap<CartPt, CartPt>();
-    for (CartPt p : nodeCoords) {
-      representatives.put(p, p);
+  // tells the retained scene, if there is one, which tiles the last power update changed
+  public void powerChanged() {
+    if (retained == null) {
+      return;
+    }
+    if (engine.flood.changedAll) {
+      retained.markAll();
+    }
+    for (int i = 0; i < engine.flood.changedCount; i++) {
+      retained.mark(engine.flood.changed[i] / width);
     }
-    
   }
   
-  // runs kruskal's algorithm
-  public ArrayList<Edge> run() {
-    
-    // the tree that will contain all the edges and be returned in the end
-    ArrayList<Edge> tree = new ArrayList<Edge>();
-    
-    // makes sure there are multiple edges so a tree can actually be made
-    // runs through the edgeList until there are no edges left to add
-    while (representatives.size() > 1 && !(edgeList.isEmpty())) {
-      Edge next = edgeList.remove(0);
-      
-      // if the pointCoords of fromNode and the pointCoords of toNode aren't the same
-      // (that is, fromNode and toNode aren't the exact same node) 
-      // add them to the tree
-      if (!(this.find(next.fromNode.pointCoords()).equals(this.find(next.toNode.pointCoords())))) {
-        tree.add(next);
-        // joins the two nodes together
-        this.join(next.fromNode, next.toNode);
-      }
-    }
-    // returns the completed tree
-    return tree;
+  // checks if the game should end, which is when every tile is powered
+  public boolean endGame() {
+    long start = engine.metrics.start();
+    boolean solved = engine.isSolved();
+    engine.metrics.stop(GameMetrics.END_GAME, start);
+    return solved;
   }
   
-  // joins two GamePieces together if they have same representative
-  public void join(GamePiece left, GamePiece right) {
-    representatives.put(this.find(left.pointCoords()), this.find(right.pointCoords()));
+  // creates an MST to draw the board with a bias, as Edges between nodes
+  public ArrayList<Edge> createMST(double bias) {
+    return this.edgeList(engine.generator.generate(width, height, bias, engine.rand.split()));
   }
   
-  // finds the representative given a CartPt and updates it
-  public CartPt find(CartPt pieceCord) {
-    CartPt proxy = representatives.get(pieceCord);
-    // if the CartPt given doesn't correspond to proxy
-    // adds the CartPt to the representatives hash where proxy is
-    if (!(proxy.equals(pieceCord))) {
-      representatives.put(pieceCord, find(proxy));
+  // the given edges as Edges between nodes, or an empty list if there are no nodes
+  public ArrayList<Edge> edgeList(GridEdges edges) {
+    ArrayList<Edge> result = new ArrayList<Edge>();
+    if (nodes.isEmpty()) {
+      return result;
+    }
+    for (int e = 0; e < edges.count; e++) {
+      result.add(new Edge(nodes.get(edges.from[e]), nodes.get(edges.to[e]), edges.weight[e]));
     }
-    return representatives.get(pieceCord);
+    return result;
   }
   
-}
-
-// compares two edges by weight
-class WeightComparator implements Comparator<Edge> {
-  
-  //compares two edges weights
-  public int compare(Edge edge1, Edge edge2) {
-    return edge1.weight - edge2.weight;
+  // increments ticks
+  public void onTick() {
+    long start = engine.metrics.start();
+    engine.tick();
+    engine.metrics.stop(GameMetrics.TICK, start);
   }
   
 }
@@ -816,7 +464,7 @@ class LightEmAllExamples {
   // tests makeScene method
   void testMakeScene(Tester t) {
     this.init();
-    lea1.makeScene();
+    lea1.updatePower();
     WorldScene w = new WorldScene(490, 560);
     w.placeImageXY(new OverlayImage(new TextImage(Integer.toString(0), 70 / 2,
         Color.black), new OverlayImage(new RectangleImage(70, 70, OutlineMode.OUTLINE, 
@@ -912,9 +560,698 @@ class LightEmAllExamples {
   // tests endGame method
   void testEndGame(Tester t) {
     this.init();
-    lea1.makeScene();
+    // the test boards are not powered until asked to be
+    t.checkExpect(lea1.endGame(), false);
+    lea1.updatePower();
     t.checkExpect(lea1.endGame(), true);
     t.checkExpect(lea3.endGame(), false);
+    // drawing does not change the board
+    lea3.makeScene();
+    t.checkExpect(lea3.engine.packed.has(lea3.engine.packed.index(2, 2), PackedBoard.POWERED), 
+        false);
+    t.checkExpect(lea3.engine.bestScore, 1000);
+    // the win always agrees with a look at every tile
+    int tile = lea1.engine.packed.index(0, 0);
+    for (int i = 0; i < 4; i++) {
+      lea1.engine.packed.rotate(tile);
+      lea1.engine.flood.rotated(lea1.engine.packed, lea1.engine.packed.index(2, 2), tile);
+      t.checkExpect(lea1.endGame(), lea1.engine.packed.allPowered());
+    }
+    t.checkExpect(lea1.endGame(), true);
+  }
+  
+  // tests playing a game through GameEngine alone
+  void testGameEngine(Tester t) {
+    GameEngine game = new GameEngine(6, 4, 0, new KruskalGenerator(), 11);
+    LightEmAll drawn = new LightEmAll(6, 4, 0, new KruskalGenerator(), 11);
+    t.checkExpect(game.packed.cells, drawn.engine.packed.cells);
+    t.checkExpect(game.rotate(4, 0), false);
+    t.checkExpect(game.rotate(0, -1), false);
+    t.checkExpect(game.clicks, 0);
+    // turns every tile until it has the wires it was generated with
+    PackedBoard solved = new PackedBoard(6, 4);
+    for (int e = 0; e < game.tree.count; e++) {
+      solved.connect(game.tree.from[e], game.tree.to[e]);
+    }
+    int turns = 0;
+    for (int tile = 0; tile < 24; tile++) {
+      while (game.packed.wires(tile) != solved.wires(tile)) {
+        t.checkExpect(game.isSolved(), false);
+        t.checkExpect(game.rotate(tile / 6, tile % 6), true);
+        turns++;
+      }
+    }
+    t.checkExpect(game.isSolved(), true);
+    t.checkExpect(game.clicks, turns);
+    // nothing counts once the game is won
+    game.tick();
+    game.miss();
+    t.checkExpect(game.rotate(0, 0), false);
+    t.checkExpect(game.moveStation(PackedBoard.TOP), false);
+    t.checkExpect(game.clicks, turns);
+    t.checkExpect(game.ticks, 0);
+    t.checkExpect(game.score(), 0);
+    t.checkExpect(game.bestScore, 0);
+  }
+  
+  // tests moveStation from GameEngine
+  void testMoveStation(Tester t) {
+    this.init();
+    GameEngine game = lea3.engine;
+    game.updatePower();
+    int station = game.packed.index(game.powerRow, game.powerCol);
+    t.checkExpect(game.moveStation(0), false);
+    t.checkExpect(game.moveStation(PackedBoard.TOP | PackedBoard.LEFT), false);
+    t.checkExpect(game.clicks, 2);
+    t.checkExpect(game.packed.has(station, PackedBoard.STATION), true);
+    t.checkExpect(game.moveStation(PackedBoard.RIGHT), true);
+    t.checkExpect(game.packed.has(station, PackedBoard.STATION), false);
+    t.checkExpect(game.packed.has(station + 1, PackedBoard.STATION), true);
+    t.checkExpect(game.clicks, 3);
+    t.checkExpect(game.flood.count, new PowerFlood().flood(game.packed, station + 1));
+  }
+  
+  // waits up to a few seconds for the given pool to have the given number of boards ready
+  void awaitReady(BoardPool pool, int width, int height, double bias, int count) {
+    for (int i = 0; i < 500 && pool.readyCount(width, height, bias) < count; i++) {
+      try {
+        Thread.sleep(10);
+      }
+      catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+  
+  // tests BoardPool
+  void testBoardPool(Tester t) {
+    t.checkConstructorException(new IllegalArgumentException("Invalid board pool configuration"),
+        "BoardPool", new KruskalGenerator(), 2, 3, 1, 0L);
+    BoardPool pool = new BoardPool(new KruskalGenerator(), 3, 1, 2, 7);
+    // nothing is ready for a size no one asked for yet
+    t.checkExpect(pool.take(5, 4, 0), null);
+    t.checkExpect(pool.misses.get(), 1L);
+    // but taking started filling it
+    this.awaitReady(pool, 5, 4, 0, 3);
+    t.checkExpect(pool.readyCount(5, 4, 0), 3);
+    GeneratedBoard board = pool.take(5, 4, 0);
+    t.checkExpect(pool.hits.get(), 1L);
+    t.checkExpect(board.packed.width, 5);
+    t.checkExpect(board.tree.count, 19);
+    // a board is the same as one generated on the spot from its seed
+    t.checkExpect(new GeneratedBoard(5, 4, 0, new KruskalGenerator(), board.seed), board);
+    // a game restarting takes its new board from the pool
+    GameEngine game = new GameEngine(5, 4, 0, new KruskalGenerator(), 1);
+    game.usePool(pool);
+    for (int i = -1; i <= 1; i++) {
+      this.awaitReady(pool, 5, 4, i / 3.0, 3);
+    }
+    game.clicks = 4;
+    game.restart();
+    t.checkExpect(pool.hits.get(), 2L);
+    t.checkExpect(game.clicks, 0);
+    t.checkExpect(game.packed.has(game.packed.index(game.powerRow, game.powerCol), 
+        PackedBoard.STATION), true);
+    t.checkExpect(game.flood.count > 0, true);
+    t.checkExpect(pool.generated.get() >= 10L, true);
+    // which is the board its seed generates with the bias the game picked
+    SplittableRandom picks = new SplittableRandom(1);
+    picks.nextLong();
+    double bias = (picks.nextInt(3) - 1) / 3.0;
+    GameEngine again = new GameEngine(5, 4, 0, new KruskalGenerator(), 1);
+    again.clicks = 4;
+    again.restart(game.seed, bias);
+    t.checkExpect(again.clicks, 0);
+    t.checkExpect(again.seed, game.seed);
+    t.checkExpect(again.packed.cells, game.packed.cells);
+    t.checkExpect(again.tree, game.tree);
+    pool.shutdown();
+  }
+  
+  // tests saving and loading games with BoardFile
+  void testBoardFile(Tester t) {
+    try {
+      Path path = Files.createTempFile("lightemall", ".lea");
+      // an odd number of tiles leaves half of the last byte of wires empty
+      GameEngine game = new GameEngine(7, 5, 0.3, new WilsonGenerator(), 12);
+      game.rotate(2, 3);
+      game.ticks = 40;
+      BoardFile.save(game, path);
+      t.checkExpect(Files.size(path), (long) BoardFile.HEADER_BYTES + 18 + 9);
+      GameEngine loaded = BoardFile.load(path, new KruskalGenerator());
+      t.checkExpect(loaded.packed.cells, game.packed.cells);
+      t.checkExpect(loaded.seed, 12L);
+      t.checkExpect(loaded.powerRow, game.powerRow);
+      t.checkExpect(loaded.powerCol, game.powerCol);
+      t.checkExpect(loaded.clicks, 1);
+      t.checkExpect(loaded.ticks, 40);
+      t.checkExpect(loaded.bestScore, game.bestScore);
+      t.checkExpect(loaded.flood.count, game.flood.count);
+      t.checkExpect(loaded.tree.count, 34);
+      t.checkExpect(loaded.plan.turns, new ClickPlan(game.packed, game.tree, 0).turns);
+      // other files are turned away
+      byte[] bytes = Files.readAllBytes(path);
+      bytes[4] = 2;
+      Files.write(path, bytes);
+      try {
+        BoardFile.load(path, new KruskalGenerator());
+        t.checkExpect("loaded", "refused");
+      }
+      catch (IOException e) {
+        t.checkExpect(e.getMessage(), "Unsupported save file version 2");
+      }
+      // as are files whose tree is not a spanning tree of the board
+      bytes[4] = 1;
+      for (int edgeCount : new int[] {33, 35, 0}) {
+        bytes[44] = (byte) edgeCount;
+        Files.write(path, bytes);
+        try {
+          BoardFile.load(path, new KruskalGenerator());
+          t.checkExpect("loaded", "refused");
+        }
+        catch (IOException e) {
+          t.checkExpect(e.getMessage(), "Corrupt save file");
+        }
+      }
+      bytes[44] = 34;
+      Arrays.fill(bytes, BoardFile.HEADER_BYTES + 18, bytes.length, (byte) 0);
+      Files.write(path, bytes);
+      try {
+        BoardFile.load(path, new KruskalGenerator());
+        t.checkExpect("loaded", "refused");
+      }
+      catch (IOException e) {
+        t.checkExpect(e.getMessage(), "Corrupt save file");
+      }
+      // a loop around four tiles leaves the last two tiles on their own
+      GridEdges loop = new GridEdges(5);
+      loop.add(0, 1, 0);
+      loop.add(1, 4, 0);
+      loop.add(4, 3, 0);
+      loop.add(3, 0, 0);
+      loop.add(2, 5, 0);
+      try {
+        BoardFile.checkTree(loop, 6);
+        t.checkExpect("loaded", "refused");
+      }
+      catch (IOException e) {
+        t.checkExpect(e.getMessage(), "Corrupt save file");
+      }
+      loop.to[3] = 2;
+      loop.from[3] = 1;
+      try {
+        BoardFile.checkTree(loop, 6);
+      }
+      catch (IOException e) {
+        t.checkExpect(e, null);
+      }
+      Files.write(path, new byte[] {1, 2, 3});
+      try {
+        BoardFile.load(path, new KruskalGenerator());
+        t.checkExpect("loaded", "refused");
+      }
+      catch (IOException e) {
+        t.checkExpect(e.getMessage(), "Not a LightEmAll save file");
+      }
+      Files.delete(path);
+    }
+    catch (IOException e) {
+      t.checkExpect(e, null);
+    }
+  }
+  
+  // tests MoveLog
+  void testMoveLog(Tester t) {
+    MoveLog log = new MoveLog();
+    log.add(MoveLog.ROTATE, 5, 0);
+    log.add(MoveLog.ROTATE, 3, 2);
+    log.add(MoveLog.MOVE, PackedBoard.RIGHT, 130);
+    log.addRestart(5, 1 / 3.0, 131);
+    log.add(MoveLog.MISS, 0, 1);
+    t.checkExpect(log.toBytes(), new byte[] {0, 80, 2, 24, -128, 1, 65, 1, 19, 5, 1, 2});
+    t.checkExpect(log.moves, 5);
+    // tiles far apart take more bytes, but still come back the same
+    MoveLog far = new MoveLog();
+    int[] tiles = {(1 << 28) - 1, 1 << 28, 0, 1 << 28, Integer.MAX_VALUE, 0, 
+                   Integer.MAX_VALUE - 1};
+    for (int tile : tiles) {
+      far.add(MoveLog.ROTATE, tile, 0);
+    }
+    far.addBatch(tiles, new int[] {1, 2, 3, 0, 1, 2, 3}, 7, 4, 0);
+    int tile = 0;
+    for (int i = 0; i < 7; i++) {
+      t.checkExpect(far.read(), 0L);
+      long move = far.read();
+      t.checkExpect(move & 7, (long) MoveLog.ROTATE);
+      tile += MoveLog.unzigzag(move >>> 3);
+      t.checkExpect(tile, tiles[i]);
+    }
+    t.checkExpect(far.read(), 0L);
+    t.checkExpect(far.read(), 7L << 3 | MoveLog.BATCH);
+    for (int i = 0; i < 7; i++) {
+      long rotation = far.read();
+      tile += MoveLog.unzigzag(rotation >>> 3);
+      t.checkExpect(tile, tiles[i]);
+      t.checkExpect(rotation & 7, (long) (i % 4 + 1) % 4);
+    }
+    t.checkExpect(far.at, far.size);
+    // replaying a recorded game onto one made the same way plays the same game
+    GameEngine game = new GameEngine(8, 6, 0, new KruskalGenerator(), 21);
+    game.log = new MoveLog();
+    SplittableRandom rand = new SplittableRandom(2);
+    for (int i = 0; i < 400; i++) {
+      int move = rand.nextInt(20);
+      if (i == 200) {
+        game.restart();
+      }
+      if (move < 15) {
+        game.rotate(rand.nextInt(6), rand.nextInt(8));
+      }
+      else if (move < 18) {
+        game.moveStation(rand.nextInt(10));
+      }
+      else if (move < 19) {
+        game.miss();
+      }
+      else {
+        game.tick();
+      }
+    }
+    // ticks after the last move are not in the log
+    game.miss();
+    t.checkExpect(game.log.moves > 300, true);
+    GameEngine replayed = game.log.replay(new GameEngine(8, 6, 0, new KruskalGenerator(), 21));
+    // without counting the replayed moves in the metrics, which are left on,
+    // so only generating and powering the first board are counted
+    t.checkExpect(replayed.metrics.snapshot().paths[GameMetrics.POWER].count, 1L);
+    t.checkExpect(replayed.metrics.snapshot().paths[GameMetrics.GENERATE].count, 1L);
+    t.checkExpect(replayed.metrics.enabled, true);
+    t.checkExpect(replayed.packed.cells, game.packed.cells);
+    t.checkExpect(replayed.seed, game.seed);
+    t.checkExpect(replayed.clicks, game.clicks);
+    t.checkExpect(replayed.ticks, game.ticks);
+    t.checkExpect(replayed.powerRow, game.powerRow);
+    t.checkExpect(replayed.powerCol, game.powerCol);
+    t.checkExpect(replayed.bestScore, game.bestScore);
+    t.checkExpect(new MoveLog(game.log.toBytes(), game.log.size, game.log.moves)
+        .replay(new GameEngine(8, 6, 0, new KruskalGenerator(), 21)).packed.cells, 
+        game.packed.cells);
+    // games restarted onto boards from a pool replay without one
+    BoardPool pool = new BoardPool(new KruskalGenerator(), 2, 1, 1, 99);
+    GameEngine pooled = new GameEngine(6, 5, 0, new KruskalGenerator(), 3);
+    pooled.usePool(pool);
+    for (int i = -1; i <= 1; i++) {
+      this.awaitReady(pool, 6, 5, i / 3.0, 2);
+    }
+    pooled.log = new MoveLog();
+    for (int i = 0; i < 6; i++) {
+      pooled.rotate(i % 5, i);
+      pooled.tick();
+      pooled.restart();
+    }
+    pooled.rotate(2, 2);
+    t.checkExpect(pool.hits.get() > 0, true);
+    GameEngine unpooled = pooled.log.replay(new GameEngine(6, 5, 0, new KruskalGenerator(), 3));
+    t.checkExpect(unpooled.seed, pooled.seed);
+    t.checkExpect(unpooled.packed.cells, pooled.packed.cells);
+    t.checkExpect(unpooled.clicks, pooled.clicks);
+    pool.shutdown();
+  }
+  
+  // tests GameMetrics
+  void testGameMetrics(Tester t) {
+    GameMetrics metrics = new GameMetrics();
+    metrics.record(GameMetrics.POWER, 1);
+    metrics.record(GameMetrics.POWER, 5);
+    metrics.record(GameMetrics.POWER, 6);
+    metrics.record(GameMetrics.POWER, 100);
+    metrics.record(GameMetrics.POWER, 0);
+    MetricsSnapshot first = metrics.snapshot();
+    PathMetrics power = first.path(GameMetrics.POWER);
+    // runs too fast for the clock still count, as taking no time
+    t.checkExpect(power.count, 5L);
+    t.checkExpect(power.totalNanos, 112L);
+    t.checkExpect(power.maxNanos, 100L);
+    t.checkExpect(power.meanNanos(), 22.4);
+    t.checkExpect(power.buckets[0], 1L);
+    t.checkExpect(power.buckets[1], 1L);
+    t.checkExpect(power.buckets[3], 2L);
+    t.checkExpect(power.buckets[7], 1L);
+    // quantiles are rounded up to the end of their bucket, but never past the longest time
+    t.checkExpect(power.quantileNanos(0.25), 1L);
+    t.checkExpect(power.quantileNanos(0.5), 7L);
+    t.checkExpect(power.quantileNanos(0.99), 100L);
+    t.checkExpect(first.path(GameMetrics.TICK).quantileNanos(0.5), 0L);
+    t.checkExpect(first.path(GameMetrics.TICK).meanNanos(), 0.0);
+    metrics.record(GameMetrics.SCENE, 3);
+    MetricsSnapshot since = metrics.snapshot().minus(first);
+    t.checkExpect(since.frames(), 1L);
+    t.checkExpect(since.path(GameMetrics.POWER).count, 0L);
+    // nothing is counted while metrics are off
+    metrics.enabled = false;
+    t.checkExpect(metrics.start(), 0L);
+    metrics.stop(GameMetrics.SCENE, metrics.start());
+    metrics.record(GameMetrics.SCENE, 3);
+    t.checkExpect(metrics.snapshot().frames(), 1L);
+    // the game counts its hot paths
+    LightEmAll lea = new LightEmAll(6, 6, 0, new KruskalGenerator(), 3);
+    MetricsSnapshot before = lea.engine.metrics.snapshot();
+    t.checkExpect(before.path(GameMetrics.GENERATE).count, 1L);
+    t.checkExpect(before.path(GameMetrics.POWER).count, 1L);
+    lea.makeScene();
+    lea.onTick();
+    lea.onKeyEvent("up");
+    lea.onMouseClicked(new Posn(lea.cellsize * 3, lea.cellsize * 3), "LeftButton");
+    MetricsSnapshot after = lea.engine.metrics.snapshot().minus(before);
+    t.checkExpect(after.frames(), 1L);
+    t.checkExpect(after.path(GameMetrics.TICK).count, 1L);
+    t.checkExpect(after.path(GameMetrics.KEY).count, 1L);
+    t.checkExpect(after.path(GameMetrics.MOUSE).count, 1L);
+    // makeScene checks for the end of the game twice, once for the buttons and once for
+    // the message, and a click once
+    t.checkExpect(after.path(GameMetrics.END_GAME).count, 3L);
+    t.checkExpect(after.path(GameMetrics.POWER).count, 1L);
+    // a board the game did not generate itself does not count
+    GeneratedBoard board = new GeneratedBoard(4, 3, 0, new KruskalGenerator(), 8);
+    GameEngine loaded = new GameEngine(new GeneratedBoard(8, board.packed, board.tree, 0, 0),
+        new KruskalGenerator());
+    t.checkExpect(loaded.metrics.snapshot().path(GameMetrics.GENERATE).count, 0L);
+    loaded.restart();
+    t.checkExpect(loaded.metrics.snapshot().path(GameMetrics.GENERATE).count, 1L);
+  }
+  
+  // tests GameMetrics over JMX and JFR
+  void testGameMetricsExported(Tester t) throws Exception {
+    LightEmAll lea = new LightEmAll(5, 5, 0, new KruskalGenerator(), 4);
+    lea.makeScene();
+    lea.makeScene();
+    javax.management.ObjectName name = lea.engine.metrics.register("test");
+    javax.management.MBeanServer server = 
+        java.lang.management.ManagementFactory.getPlatformMBeanServer();
+    t.checkExpect(server.getAttribute(name, "makeSceneCount"), 2L);
+    t.checkExpect(server.getAttribute(name, "generateCount"), 1L);
+    t.checkExpect(server.getMBeanInfo(name).getAttributes().length, 35);
+    t.checkExpect(((String) server.invoke(name, "snapshot", null, null))
+        .startsWith("makeScene: 2 runs"), true);
+    lea.engine.metrics.unregister(name);
+    t.checkExpect(server.isRegistered(name), false);
+    // runs are flight recorder events while a recording has them enabled
+    jdk.jfr.Recording recording = new jdk.jfr.Recording();
+    recording.enable("LightEmAll.HotPath");
+    recording.start();
+    lea.onTick();
+    recording.stop();
+    Path file = Files.createTempFile("hotpath", ".jfr");
+    recording.dump(file);
+    recording.close();
+    int ticks = 0;
+    for (jdk.jfr.consumer.RecordedEvent e : jdk.jfr.consumer.RecordingFile.readAllEvents(file)) {
+      if (e.getString("path").equals("onTick")) {
+        ticks++;
+      }
+    }
+    Files.delete(file);
+    t.checkExpect(ticks, 1);
+  }
+  
+  // tests GameServer answering requests
+  void testGameServerAnswer(Tester t) {
+    GameSession session = new GameSession(null, null);
+    t.checkExpect(GameServer.answer(session, "STATE"), "ERR No game, start one with NEW");
+    t.checkExpect(GameServer.answer(session, "NEW 0 3"), 
+        "ERR Board sizes must be between 1 and 1000");
+    t.checkExpect(GameServer.answer(session, "NEW 3 x"), "ERR Not a number in NEW 3 x");
+    t.checkExpect(GameServer.answer(session, "new 3 2 9"), "OK");
+    GameEngine same = new GameEngine(3, 2, 0, new KruskalGenerator(), 9);
+    t.checkExpect(session.game.packed.cells, same.packed.cells);
+    t.checkExpect(GameServer.answer(session, "ROTATE 1 2"), 
+        "OK 1 1 " + (session.game.isSolved() ? 1 : 0));
+    t.checkExpect(GameServer.answer(session, "ROTATE 5 0"), 
+        "OK 0 1 " + (session.game.isSolved() ? 1 : 0));
+    t.checkExpect(GameServer.answer(session, "MOVE SIDEWAYS"), 
+        "ERR Unknown direction SIDEWAYS");
+    t.checkExpect(GameServer.answer(session, "TICK"), "OK 1");
+    t.checkExpect(GameServer.answer(session, "JUMP"), "ERR Unknown request JUMP");
+    same.rotate(1, 2);
+    same.tick();
+    String state = GameServer.answer(session, "STATE");
+    t.checkExpect(state.startsWith("OK 3 2 " + same.powerRow + " " + same.powerCol + " 1 1 1000 "),
+        true);
+    String cells = state.substring(state.lastIndexOf(' ') + 1);
+    t.checkExpect(cells.length(), 12);
+    t.checkExpect(Integer.parseInt(cells.substring(10, 12), 16), (int) same.packed.cells[5]);
+  }
+  
+  // tests GameServer over TCP with a load generator
+  void testGameServer(Tester t) throws Exception {
+    GameServer server = new GameServer(0);
+    java.net.Socket socket = new java.net.Socket("localhost", server.port());
+    java.io.BufferedReader in = new java.io.BufferedReader(
+        new java.io.InputStreamReader(socket.getInputStream()));
+    java.io.PrintWriter out = new java.io.PrintWriter(socket.getOutputStream(), true);
+    out.println("NEW 4 4 1");
+    t.checkExpect(in.readLine(), "OK");
+    out.println("TICK");
+    t.checkExpect(in.readLine(), "OK 1");
+    out.println("QUIT");
+    t.checkExpect(in.readLine(), "OK");
+    t.checkExpect(in.readLine(), null);
+    socket.close();
+    LoadResult result = new LoadGenerator("localhost", server.port(), 50, 20, 10).run();
+    t.checkExpect(result.latencies.length, 1000);
+    t.checkExpect(result.quantile(0.5) <= result.quantile(0.99), true);
+    t.checkExpect(result.quantile(1), result.latencies[999]);
+    t.checkExpect(result.throughput() > 0, true);
+    // every request was answered, including NEW and QUIT
+    t.checkExpect(server.requests.get(), 1000L + 100 + 3);
+    server.close();
+  }
+  
+  // tests BoardSolver
+  void testBoardSolver(Tester t) {
+    // two dead ends can only face each other
+    PackedBoard pair = new PackedBoard(2, 1);
+    pair.cells[0] = PackedBoard.TOP;
+    pair.cells[1] = PackedBoard.TOP;
+    Solutions one = new BoardSolver().solve(pair, 10);
+    t.checkExpect(one.count, 1);
+    t.checkExpect(one.turns, new byte[] {3, 1});
+    // four corners make a loop, which has too many wires for a tree
+    PackedBoard loop = new PackedBoard(2, 2);
+    Arrays.fill(loop.cells, (byte) (PackedBoard.TOP | PackedBoard.LEFT));
+    t.checkExpect(new BoardSolver().solve(loop, 10).count, 0);
+    // a straight wire between two dead ends only has two different rotations
+    PackedBoard line = new PackedBoard(3, 1);
+    line.cells[0] = PackedBoard.LEFT;
+    line.cells[1] = PackedBoard.LEFT | PackedBoard.RIGHT;
+    line.cells[2] = PackedBoard.RIGHT;
+    Solutions straight = new BoardSolver().solve(line, 10);
+    t.checkExpect(straight.count, 1);
+    t.checkExpect(straight.turns, new byte[] {2, 0, 2});
+    // the solutions of generated boards power every tile,
+    // and as many are found on one thread as on many
+    for (int seed = 0; seed < 6; seed++) {
+      GameEngine game = new GameEngine(12, 9, 0, new WilsonGenerator(), seed);
+      Solutions found = new BoardSolver().solve(game.packed, 5);
+      t.checkExpect(found.count >= 1 && found.count <= 5, true);
+      t.checkExpect(new BoardSolver(new ForkJoinPool(1)).solve(game.packed, 5).count, 
+          found.count);
+      // and the first solution is always the one a search on one thread finds first
+      SolverState alone = new SolverState(game.packed);
+      Solutions first = new Solutions(1);
+      alone.propagate();
+      alone.search(first, 0);
+      t.checkExpect(found.turns, first.turns);
+      t.checkExpect(new BoardSolver(new ForkJoinPool(4)).solve(game.packed, 1).turns, 
+          first.turns);
+      for (int tile = 0; tile < 108; tile++) {
+        for (int i = 0; i < found.turns[tile]; i++) {
+          game.packed.rotate(tile);
+        }
+      }
+      t.checkExpect(game.updatePower(), 108);
+    }
+  }
+  
+  // tests BoardAnalysis and BoardAnalyzer
+  void testBoardAnalysis(Tester t) {
+    PackedBoard pair = new PackedBoard(2, 1);
+    pair.cells[0] = PackedBoard.TOP;
+    pair.cells[1] = PackedBoard.TOP;
+    BoardAnalysis easy = new BoardAnalysis(pair);
+    t.checkExpect(easy.unique(), true);
+    t.checkExpect(easy.forced, 2);
+    t.checkExpect(easy.guesses, 0);
+    t.checkExpect(easy.waves >= 1, true);
+    PackedBoard loop = new PackedBoard(2, 2);
+    Arrays.fill(loop.cells, (byte) (PackedBoard.TOP | PackedBoard.LEFT));
+    t.checkExpect(new BoardAnalysis(loop).solutions, 0);
+    t.checkExpect(new BoardAnalysis(loop).unique(), false);
+    // analyzing many boards at once gives the same answers as one at a time
+    PackedBoard[] boards = new PackedBoard[10];
+    for (int i = 0; i < 10; i++) {
+      boards[i] = new GameEngine(10, 10, 0, new KruskalGenerator(), i).packed;
+    }
+    BoardAnalysis[] results = new BoardAnalyzer(new ForkJoinPool(3)).analyze(boards);
+    for (int i = 0; i < 10; i++) {
+      BoardAnalysis alone = new BoardAnalysis(boards[i]);
+      t.checkExpect(results[i], alone);
+      t.checkExpect(alone.solutions, new BoardSolver().solve(boards[i], 2).count);
+      t.checkNumRange(alone.forced, 0, 101);
+      t.checkExpect(alone.guesses == 0, alone.forced == 100);
+    }
+    // only square grids can be analyzed
+    boards[3] = new PackedBoard(4, 4, new TorusGrid());
+    t.checkConstructorException(
+        new IllegalArgumentException("Only square grids can be analyzed"), 
+        "BoardAnalysis", boards[3]);
+    t.checkException(new IllegalArgumentException("Only square grids can be analyzed"), 
+        new BoardAnalyzer(), "analyze", new Object[] {boards});
+  }
+  
+  // tests ClickPlan
+  void testClickPlan(Tester t) {
+    GameEngine game = new GameEngine(9, 7, 0, new PrimGenerator(), 4);
+    ClickPlan plan = game.plan;
+    int rotations = 0;
+    for (int tile = 0; tile < 63; tile++) {
+      int wires = game.packed.wires(tile);
+      t.checkNumRange(plan.turns[tile], 0, 4);
+      // straight wires never need more than one turn, and crosses none
+      if (wires == (PackedBoard.TOP | PackedBoard.BOTTOM) 
+          || wires == (PackedBoard.LEFT | PackedBoard.RIGHT)) {
+        t.checkNumRange(plan.turns[tile], 0, 2);
+      }
+      if (wires == PackedBoard.WIRES) {
+        t.checkExpect(plan.turns[tile], (byte) 0);
+      }
+      rotations += plan.turns[tile];
+    }
+    t.checkExpect(plan.rotations, rotations);
+    t.checkExpect(plan.optimum(), rotations);
+    t.checkExpect(game.efficiency(), 1.0);
+    // following the plan solves the board in exactly that many clicks
+    for (int tile = 0; tile < 63; tile++) {
+      for (int i = 0; i < plan.turns[tile]; i++) {
+        game.rotate(tile / 9, tile % 9);
+      }
+    }
+    t.checkExpect(game.isSolved(), true);
+    t.checkExpect(game.clicks, plan.optimum());
+    t.checkExpect(plan.efficiency(plan.optimum() * 2), 0.5);
+    t.checkExpect(plan.efficiency(0), 1.0);
+    // a solved board needs nothing
+    t.checkExpect(new ClickPlan(game.packed, game.tree, 0).optimum(), 0);
+  }
+  
+  // tests the station moves a ClickPlan needs while power is limited
+  void testClickPlanRadius(Tester t) {
+    int reached = 0;
+    for (int seed = 0; seed < 20; seed++) {
+      GameEngine game = new GameEngine(9, 7, seed % 3 - 1, new WilsonGenerator(), seed);
+      t.checkExpect(game.plan.stationMoves, 0);
+      game.radius = 10 + seed;
+      game.limitPower(true);
+      // the nearest tile within the radius of every tile of the tree, found the slow way
+      PackedBoard solved = new PackedBoard(9, 7);
+      for (int e = 0; e < game.tree.count; e++) {
+        solved.connect(game.tree.from[e], game.tree.to[e]);
+      }
+      int station = game.packed.index(game.powerRow, game.powerCol);
+      int[] fromStation = this.wireDistances(solved, station);
+      int nearest = -1;
+      for (int tile = 0; tile < 63; tile++) {
+        int[] dist = this.wireDistances(solved, tile);
+        boolean covers = true;
+        for (int other = 0; other < 63; other++) {
+          covers = covers && dist[other] <= game.radius;
+        }
+        if (covers && (nearest == -1 || fromStation[tile] < fromStation[nearest])) {
+          nearest = tile;
+        }
+      }
+      t.checkExpect(game.plan.reachable, nearest != -1);
+      if (nearest == -1) {
+        continue;
+      }
+      reached++;
+      t.checkExpect(game.plan.stationMoves, fromStation[nearest]);
+      // following the plan solves the board in exactly that many clicks
+      for (int tile = 0; tile < 63; tile++) {
+        for (int i = 0; i < game.plan.turns[tile]; i++) {
+          game.rotate(tile / 9, tile % 9);
+        }
+      }
+      t.checkExpect(game.isSolved(), game.plan.stationMoves == 0);
+      int[] ways = new int[fromStation[nearest]];
+      int tile = nearest;
+      while (tile != station) {
+        int dir = 1;
+        while (!solved.connected(tile, dir) 
+            || fromStation[solved.neighbor(tile, dir)] != fromStation[tile] - 1) {
+          dir <<= 1;
+        }
+        ways[fromStation[tile] - 1] = solved.opposite(dir);
+        tile = solved.neighbor(tile, dir);
+      }
+      for (int way : ways) {
+        t.checkExpect(game.moveStation(way), true);
+      }
+      t.checkExpect(game.isSolved(), true);
+      t.checkExpect(game.clicks, game.plan.optimum());
+      game.limitPower(false);
+      t.checkExpect(game.plan.stationMoves, 0);
+    }
+    // some boards can't be solved at all
+    t.checkNumRange(reached, 1, 20);
+  }
+  
+  // tests that a game made from given pieces describes those pieces
+  void testPiecesConstructor(Tester t) {
+    this.init();
+    GameEngine game = lea1.engine;
+    t.checkExpect(game.seed, 0L);
+    t.checkExpect(game.packed.has(game.packed.index(2, 2), PackedBoard.STATION), true);
+    // the tree is the wires of the pieces as given, which reach every tile
+    t.checkExpect(game.tree.count, 24);
+    t.checkExpect(lea1.mst.size(), 24);
+    for (int e = 0; e < game.tree.count; e++) {
+      int from = game.tree.from[e];
+      int to = game.tree.to[e];
+      boolean joined = false;
+      for (int dir = 1; dir <= PackedBoard.WIRES; dir <<= 1) {
+        joined = joined || (game.packed.neighbor(from, dir) == to 
+            && game.packed.connected(from, dir));
+      }
+      t.checkExpect(joined, true);
+    }
+    // so the pieces are already solved
+    t.checkExpect(game.plan.optimum(), 0);
+    t.checkExpect(game.updatePower(), 25);
+    t.checkExpect(game.isSolved(), true);
+    // pieces whose wires don't reach every tile have no tree and no plan
+    t.checkExpect(lea3.engine.tree.count, 0);
+    t.checkExpect(lea3.engine.plan.optimum(), 0);
+    t.checkExpect(lea3.mst.size(), 0);
+    // and neither do pieces whose wires don't meet
+    LightEmAll apart = new LightEmAll(new ArrayList<ArrayList<GamePiece>>(Arrays.asList(
+        new ArrayList<GamePiece>(Arrays.asList(new GamePiece(false, false, true, true, 0, 0),
+            new GamePiece(false, false, true, true, 1, 0))))), 0, 0);
+    t.checkExpect(apart.engine.tree.count, 0);
+  }
+  
+  // tests checkWin from GameEngine
+  void testCheckWin(Tester t) {
+    this.init();
+    lea1.engine.clicks = 3;
+    lea1.engine.ticks = 5;
+    lea1.engine.checkWin();
+    t.checkExpect(lea1.engine.bestScore, 1000);
+    lea1.updatePower();
+    t.checkExpect(lea1.engine.bestScore, 15);
+    lea1.engine.clicks = 10;
+    lea1.engine.checkWin();
+    t.checkExpect(lea1.engine.bestScore, 15);
   }
   
   // tests power method
@@ -939,6 +1276,238 @@ class LightEmAllExamples {
     t.checkExpect(lea2.createMST(0).size(), 8);
   }
   
+  // tests the GridEdges constructor
+  void testGridEdges(Tester t) {
+    GridEdges edges = new GridEdges(3, 2, 0, new SplittableRandom());
+    t.checkExpect(edges.count, 7);
+    t.checkExpect(edges.from, new int[] {0, 0, 1, 1, 2, 3, 4});
+    t.checkExpect(edges.to, new int[] {1, 3, 2, 4, 5, 4, 5});
+    for (int i = 0; i < edges.count; i++) {
+      t.checkNumRange(edges.weight[i], 0, 60);
+    }
+    // vertical edges are heavier with a positive bias
+    GridEdges horizontal = new GridEdges(20, 20, 0.5, new SplittableRandom());
+    GridEdges vertical = new GridEdges(20, 20, -0.5, new SplittableRandom());
+    for (int i = 0; i < horizontal.count; i++) {
+      boolean isVertical = horizontal.to[i] - horizontal.from[i] == 20;
+      t.checkNumRange(horizontal.weight[i], isVertical ? 30 : 0, 60);
+      t.checkNumRange(vertical.weight[i], isVertical ? 0 : 30, 60);
+    }
+    // a single tile has no edges
+    t.checkExpect(new GridEdges(1, 1, 0, new SplittableRandom()).count, 0);
+  }
+  
+  // tests that every IMazeGenerator lays out a spanning tree
+  void testGenerators(Tester t) {
+    ArrayList<IMazeGenerator> generators = new ArrayList<IMazeGenerator>(Arrays.asList(
+        new KruskalGenerator(), new PrimGenerator(), new WilsonGenerator(), 
+        new BoruvkaGenerator(), new ParallelBoruvkaGenerator()));
+    for (IMazeGenerator g : generators) {
+      // even at the ends of the range of biases
+      for (double bias : new double[] {-1, -0.5, 0, 0.5, 1}) {
+        GridEdges tree = g.generate(7, 5, bias, new SplittableRandom());
+        t.checkExpect(tree.count, 34);
+        // 34 edges that connect all 35 tiles make a tree
+        PackedBoard pb = new PackedBoard(7, 5);
+        for (int e = 0; e < tree.count; e++) {
+          t.checkExpect(Math.abs(tree.from[e] - tree.to[e]) == 1 
+              || Math.abs(tree.from[e] - tree.to[e]) == 7, true);
+          pb.connect(tree.from[e], tree.to[e]);
+        }
+        t.checkExpect(new PowerFlood().flood(pb, 0), 35);
+      }
+      t.checkExpect(g.generate(1, 1, 0, new SplittableRandom()).count, 0);
+      t.checkExpect(g.generate(1, 4, 0, new SplittableRandom()).count, 3);
+      // a square board gets the same tree as the grid of its size
+      GridEdges grid = g.generate(7, 5, 0.3, new SplittableRandom(11));
+      GridEdges board = g.generate(new PackedBoard(7, 5), 0.3, new SplittableRandom(11));
+      t.checkExpect(board.count, grid.count);
+      t.checkExpect(Arrays.equals(board.from, grid.from), true);
+      t.checkExpect(Arrays.equals(board.to, grid.to), true);
+      // and tori and hex grids get spanning trees along their own neighbors
+      for (ITopology topology : new ITopology[] {new TorusGrid(), new HexGrid()}) {
+        for (double bias : new double[] {-1, 0, 1}) {
+          GridEdges tree = g.generate(new PackedBoard(7, 5, topology), bias, 
+              new SplittableRandom(3));
+          t.checkExpect(tree.count, 34);
+          // connect throws if the tiles of an edge are not neighbors
+          PackedBoard pb = new PackedBoard(7, 5, topology);
+          for (int e = 0; e < tree.count; e++) {
+            pb.connect(tree.from[e], tree.to[e]);
+          }
+          t.checkExpect(new PowerFlood().flood(pb, 0), 35);
+        }
+      }
+      // a game can be played on a board from any generator
+      LightEmAll lea = new LightEmAll(4, 3, 0, g);
+      t.checkExpect(lea.mst.size(), 11);
+    }
+  }
+  
+  // tests push and pop from LongHeap
+  void testLongHeap(Tester t) {
+    LongHeap heap = new LongHeap();
+    long[] items = new long[] {5, 3, 9, 1, 7, 3, 40, 2, 8, 6, 0, 11, 4, 10, 12, 13, 14, 15};
+    for (long item : items) {
+      heap.push(item);
+    }
+    t.checkExpect(heap.size, 18);
+    long[] popped = new long[18];
+    for (int i = 0; i < 18; i++) {
+      popped[i] = heap.pop();
+    }
+    Arrays.sort(items);
+    t.checkExpect(popped, items);
+  }
+  
+  // tests that BoruvkaGenerator and KruskalGenerator find the same MST
+  void testBoruvkaMatchesKruskal(Tester t) {
+    GridEdges kruskal = new KruskalGenerator().generate(9, 6, 0.2, new SplittableRandom(7));
+    GridEdges boruvka = new BoruvkaGenerator().generate(9, 6, 0.2, new SplittableRandom(7));
+    int kruskalWeight = 0;
+    int boruvkaWeight = 0;
+    for (int e = 0; e < kruskal.count; e++) {
+      kruskalWeight += kruskal.weight[e];
+      boruvkaWeight += boruvka.weight[e];
+    }
+    t.checkExpect(boruvkaWeight, kruskalWeight);
+  }
+  
+  // tests that ParallelBoruvkaGenerator finds the same tree as kruskal's algorithm
+  // on a board big enough to be split into stripes
+  void testParallelBoruvka(Tester t) {
+    GridEdges edges = new GridEdges(300, 250, 0.1, new SplittableRandom());
+    BoruvkaState state = new BoruvkaState(300, 250);
+    for (int e = 0; e < edges.count; e++) {
+      boolean right = edges.to[e] == edges.from[e] + 1;
+      state.weight[2 * edges.from[e] + (right ? 0 : 1)] = (byte) edges.weight[e];
+    }
+    GridEdges parallel = new ParallelBoruvkaGenerator(new ForkJoinPool(4)).spanningTree(state);
+    int[] picked = new BucketKruskal(75000).run(edges.from, edges.to, edges.weight, 
+        edges.count, GridEdges.MAX_WEIGHT);
+    Arrays.sort(picked);
+    // both list the tree in the same order the grid's edges are in
+    GridEdges kruskal = new GridEdges(picked.length);
+    for (int e : picked) {
+      kruskal.add(edges.from[e], edges.to[e], edges.weight[e]);
+    }
+    t.checkExpect(parallel.count, 74999);
+    t.checkExpect(parallel.from, kruskal.from);
+    t.checkExpect(parallel.to, kruskal.to);
+    t.checkExpect(parallel.weight, kruskal.weight);
+    // and the same on a hex grid, whose edges run along the last three wires of each tile
+    PackedBoard hex = new PackedBoard(300, 250, new HexGrid());
+    GridEdges hexEdges = new GridEdges(hex, -0.1, new SplittableRandom());
+    BoruvkaState hexState = new BoruvkaState(hex);
+    for (int e = 0; e < hexEdges.count; e++) {
+      for (int i = 0; i < 3; i++) {
+        if (hex.neighbor(hexEdges.from[e], 1 << (3 + i)) == hexEdges.to[e]) {
+          hexState.weight[3 * hexEdges.from[e] + i] = (byte) hexEdges.weight[e];
+        }
+      }
+    }
+    GridEdges hexParallel = new ParallelBoruvkaGenerator(new ForkJoinPool(4))
+        .spanningTree(hexState);
+    int[] hexPicked = new BucketKruskal(75000).run(hexEdges.from, hexEdges.to, 
+        hexEdges.weight, hexEdges.count, GridEdges.MAX_WEIGHT);
+    Arrays.sort(hexPicked);
+    GridEdges hexKruskal = new GridEdges(hexPicked.length);
+    for (int e : hexPicked) {
+      hexKruskal.add(hexEdges.from[e], hexEdges.to[e], hexEdges.weight[e]);
+    }
+    t.checkExpect(hexParallel.count, 74999);
+    t.checkExpect(hexParallel.from, hexKruskal.from);
+    t.checkExpect(hexParallel.to, hexKruskal.to);
+  }
+  
+  // tests that games with the same seed play out the same boards
+  void testSeed(Tester t) {
+    LightEmAll a = new LightEmAll(12, 9, 0.2, new KruskalGenerator(), 42);
+    LightEmAll b = new LightEmAll(12, 9, 0.2, new KruskalGenerator(), 42);
+    LightEmAll c = new LightEmAll(12, 9, 0.2, new KruskalGenerator(), 43);
+    t.checkExpect(a.engine.packed.cells, b.engine.packed.cells);
+    t.checkExpect(a.engine.powerRow, b.engine.powerRow);
+    t.checkExpect(a.engine.powerCol, b.engine.powerCol);
+    t.checkExpect(Arrays.equals(a.engine.packed.cells, c.engine.packed.cells), false);
+    // restarting picks the same next board too
+    a.onMouseClicked(new Posn(a.cellsize * 12 / 2 + a.cellsize, a.cellsize), "LeftButton");
+    b.onMouseClicked(new Posn(b.cellsize * 12 / 2 + b.cellsize, b.cellsize), "LeftButton");
+    t.checkExpect(a.engine.seed == 42, false);
+    t.checkExpect(a.engine.seed, b.engine.seed);
+    t.checkExpect(a.engine.packed.cells, b.engine.packed.cells);
+    // the parallel generator is just as repeatable
+    GridEdges p1 = new ParallelBoruvkaGenerator().generate(400, 300, 0, new SplittableRandom(5));
+    GridEdges p2 = new ParallelBoruvkaGenerator().generate(400, 300, 0, new SplittableRandom(5));
+    t.checkExpect(p1.from, p2.from);
+    t.checkExpect(p1.to, p2.to);
+  }
+  
+  // tests the random GamePiece constructor
+  void testRandomGamePiece(Tester t) {
+    for (int i = 0; i < 50; i++) {
+      GamePiece gp = new GamePiece(3, 4);
+      t.checkExpect(gp.left || gp.right || gp.top || gp.bottom, true);
+      t.checkExpect(gp.col, 3);
+      t.checkExpect(gp.row, 4);
+    }
+  }
+  
+  // tests image from TileImageCache
+  void testTileImageCache(Tester t) {
+    TileImageCache cache = new TileImageCache();
+    int cell = PackedBoard.LEFT | PackedBoard.TOP | PackedBoard.POWERED;
+    WorldImage image = cache.image(cell, 70);
+    t.checkExpect(image, 
+        new GamePiece(true, false, true, false, 0, 0).tileImage(70, 14, Color.yellow, false));
+    // the same image is handed out again
+    t.checkExpect(cache.image(cell, 70) == image, true);
+    t.checkExpect(cache.image(PackedBoard.STATION | PackedBoard.RIGHT, 70), 
+        new GamePiece(false, true, false, false, 0, 0, true).tileImage(70, 14, Color.gray, 
+            false));
+    // until the size changes
+    t.checkExpect(cache.image(cell, 35) == image, false);
+    t.checkExpect(cache.image(cell, 35), 
+        new GamePiece(true, false, true, false, 0, 0).tileImage(35, 7, Color.yellow, false));
+  }
+  
+  // tests makeScene with retained scenes
+  void testRetainedScene(Tester t) {
+    LightEmAll lea = new LightEmAll(4, 3, 0, new KruskalGenerator(), 3);
+    lea.retainScenes();
+    WorldScene first = lea.makeScene();
+    // nothing changed, so the same frame comes back
+    t.checkExpect(lea.makeScene() == first, true);
+    // a tick redraws the buttons but not the board
+    WorldImage boardImage = lea.retained.boardImage;
+    WorldImage[] rows = Arrays.copyOf(lea.retained.rows, 3);
+    lea.engine.ticks++;
+    WorldScene second = lea.makeScene();
+    t.checkExpect(second == first, false);
+    t.checkExpect(lea.retained.boardImage == boardImage, true);
+    // rotating a tile only redraws its row and the rows whose power changed
+    PackedBoard b = lea.engine.packed;
+    b.clear(b.index(lea.engine.powerRow, lea.engine.powerCol), PackedBoard.STATION);
+    lea.engine.packed.set(0, PackedBoard.STATION);
+    lea.engine.powerRow = 0;
+    lea.engine.powerCol = 0;
+    lea.updatePower();
+    lea.makeScene();
+    rows = Arrays.copyOf(lea.retained.rows, 3);
+    lea.onMouseClicked(new Posn(lea.cellsize * 4 + lea.cellsize / 2, 
+        lea.cellsize * 4 + lea.cellsize / 2), "LeftButton");
+    t.checkExpect(lea.engine.flood.changedAll, false);
+    lea.makeScene();
+    t.checkExpect(lea.retained.rows[2] == rows[2], false);
+    t.checkExpect(lea.retained.rows[2], lea.retained.rowImage(lea, 2));
+    // the rows with no tiles whose power changed were kept
+    for (int i = 0; i < lea.engine.flood.changedCount; i++) {
+      rows[lea.engine.flood.changed[i] / 4] = null;
+    }
+    for (int i = 0; i < 2; i++) {
+      t.checkExpect(rows[i] == null || rows[i] == lea.retained.rows[i], true);
+    }
+  }
+  
   // tests pointCoords from GamePiece
   void testPointCoords(Tester t) {
     this.init();
@@ -976,10 +1545,684 @@ class LightEmAllExamples {
     t.checkExpect(test.find(new CartPt(1,1)), new CartPt(1,1));
   }
   
+  // tests the packed board built from lea1's GamePieces
+  void testPackedBoard(Tester t) {
+    this.init();
+    t.checkExpect(lea1.engine.packed.width, 5);
+    t.checkExpect(lea1.engine.packed.height, 5);
+    t.checkExpect(lea1.engine.packed.wires(0), PackedBoard.BOTTOM);
+    t.checkExpect(lea1.engine.packed.wires(lea1.engine.packed.index(2, 0)), 
+        PackedBoard.TOP | PackedBoard.BOTTOM | PackedBoard.RIGHT);
+    PackedBoard b = lea1.engine.packed;
+    t.checkExpect(b.has(b.index(2, 2), PackedBoard.STATION), true);
+    t.checkExpect(b.has(b.index(2, 1), PackedBoard.STATION), false);
+  }
+  
+  // tests rotate from PackedBoard
+  void testPackedRotate(Tester t) {
+    this.init();
+    PackedBoard pb = GamePiece.pack(new ArrayList<ArrayList<GamePiece>>(Arrays.asList(
+        new ArrayList<GamePiece>(Arrays.asList(gpall, gp1, gp2, gp3)))));
+    for (int tile = 0; tile < 4; tile++) {
+      pb.rotate(tile);
+    }
+    GamePiece gp = new GamePiece(false, false, false, false, 0, 0);
+    gp.copyFrom(pb, 0);
+    t.checkExpect(gp, new GamePiece(true, true, true, true, 0, 0));
+    gp.copyFrom(pb, 1);
+    t.checkExpect(gp, new GamePiece(true, true, false, true, 0, 0));
+    gp.copyFrom(pb, 2);
+    t.checkExpect(gp, new GamePiece(false, false, true, true, 0, 0));
+    gp.copyFrom(pb, 3);
+    t.checkExpect(gp, new GamePiece(true, false, true, false, 0, 0));
+  }
+  
+  // tests neighbor, connected and connect from PackedBoard
+  void testPackedConnect(Tester t) {
+    PackedBoard pb = new PackedBoard(3, 2);
+    t.checkExpect(pb.neighbor(0, PackedBoard.TOP), -1);
+    t.checkExpect(pb.neighbor(0, PackedBoard.LEFT), -1);
+    t.checkExpect(pb.neighbor(0, PackedBoard.RIGHT), 1);
+    t.checkExpect(pb.neighbor(0, PackedBoard.BOTTOM), 3);
+    t.checkExpect(pb.neighbor(5, PackedBoard.RIGHT), -1);
+    t.checkExpect(pb.neighbor(5, PackedBoard.BOTTOM), -1);
+    t.checkExpect(pb.connected(0, PackedBoard.RIGHT), false);
+    pb.connect(1, 0);
+    pb.connect(1, 4);
+    t.checkExpect(pb.connected(0, PackedBoard.RIGHT), true);
+    t.checkExpect(pb.connected(1, PackedBoard.LEFT), true);
+    t.checkExpect(pb.connected(4, PackedBoard.TOP), true);
+    t.checkExpect(pb.wires(1), PackedBoard.LEFT | PackedBoard.BOTTOM);
+  }
+  
+  // tests clearPower and allPowered from PackedBoard
+  void testPackedPower(Tester t) {
+    this.init();
+    PackedBoard pb = lea1.engine.packed;
+    t.checkExpect(pb.allPowered(), false);
+    pb.set(0, PackedBoard.POWERED);
+    pb.set(1, PackedBoard.POWERED);
+    t.checkExpect(pb.has(1, PackedBoard.POWERED), true);
+    pb.clearPower();
+    t.checkExpect(pb.has(1, PackedBoard.POWERED), false);
+    for (int tile = 0; tile < 25; tile++) {
+      pb.set(tile, PackedBoard.POWERED);
+    }
+    t.checkExpect(pb.allPowered(), true);
+  }
+  
+  // tests flood from PowerFlood
+  void testFlood(Tester t) {
+    this.init();
+    PowerFlood pf = new PowerFlood();
+    PackedBoard pb = lea1.engine.packed;
+    t.checkExpect(pf.flood(pb, pb.index(2, 2)), 25);
+    t.checkExpect(pb.allPowered(), true);
+    // rotates a corner so it isn't connected anymore
+    pb.rotate(0);
+    t.checkExpect(pf.flood(pb, pb.index(2, 2)), 24);
+    t.checkExpect(pb.has(0, PackedBoard.POWERED), false);
+    t.checkExpect(pb.has(pb.index(1, 0), PackedBoard.POWERED), true);
+    // floods from the corner that isn't connected to anything
+    t.checkExpect(pf.flood(pb, 0), 1);
+    t.checkExpect(pb.has(0, PackedBoard.POWERED), true);
+    t.checkExpect(pb.has(pb.index(2, 2), PackedBoard.POWERED), false);
+  }
+  
+  // tests that flood works on a single wire too long to recurse along
+  void testFloodSnake(Tester t) {
+    PackedBoard pb = new PackedBoard(300, 300);
+    for (int row = 0; row < 300; row++) {
+      for (int col = 0; col < 299; col++) {
+        pb.connect(pb.index(row, col), pb.index(row, col + 1));
+      }
+      // joins the rows alternating between the right and left ends
+      if (row < 299) {
+        int col = row % 2 == 0 ? 299 : 0;
+        pb.connect(pb.index(row, col), pb.index(row + 1, col));
+      }
+    }
+    t.checkExpect(new PowerFlood().flood(pb, 0), 90000);
+    t.checkExpect(pb.allPowered(), true);
+  }
+  
+  // tests that parallel floods power the same tiles as GamePiece.power and flood
+  void testParallelFlood(Tester t) {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    SplittableRandom r = new SplittableRandom(6);
+    for (int i = 0; i < 20; i++) {
+      LightEmAll lea = new LightEmAll(9, 7, (i % 3 - 1) / 3.0, new KruskalGenerator(), i);
+      PackedBoard pb = lea.engine.packed;
+      // scrambles some tiles, so not everything is powered
+      for (int k = 0; k < 20; k++) {
+        pb.rotate(r.nextInt(63));
+      }
+      int station = pb.index(lea.engine.powerRow, lea.engine.powerCol);
+      PowerFlood parallel = new PowerFlood();
+      parallel.parallel(pool, 0);
+      int count = parallel.flood(pb, station);
+      lea.syncView();
+      GamePiece gp = lea.board.get(lea.engine.powerRow).get(lea.engine.powerCol);
+      for (ArrayList<GamePiece> row : lea.board) {
+        for (GamePiece piece : row) {
+          piece.powered = false;
+        }
+      }
+      gp.power(lea.board);
+      int powered = 0;
+      for (int tile = 0; tile < 63; tile++) {
+        GamePiece piece = lea.board.get(tile / 9).get(tile % 9);
+        t.checkExpect(pb.has(tile, PackedBoard.POWERED), piece.powered);
+        powered += piece.powered ? 1 : 0;
+      }
+      t.checkExpect(count, powered);
+      // rotations after a parallel flood are worked out from its parents
+      PackedBoard full = new PackedBoard(9, 7);
+      for (int k = 0; k < 30; k++) {
+        int tile = r.nextInt(63);
+        pb.rotate(tile);
+        int rotatedCount = parallel.rotated(pb, station, tile);
+        System.arraycopy(pb.cells, 0, full.cells, 0, 63);
+        t.checkExpect(rotatedCount, new PowerFlood().flood(full, station));
+        t.checkExpect(pb.cells, full.cells);
+      }
+    }
+    // levels of many chunks, and a wire too long to recurse along
+    PackedBoard snake = new PackedBoard(300, 300);
+    for (int row = 0; row < 300; row++) {
+      for (int col = 0; col < 299; col++) {
+        snake.connect(snake.index(row, col), snake.index(row, col + 1));
+      }
+      if (row < 299) {
+        snake.connect(snake.index(row, 150), snake.index(row + 1, 150));
+      }
+    }
+    PowerFlood pf = new PowerFlood();
+    pf.parallel(pool, 1000);
+    t.checkExpect(pf.flood(snake, snake.index(150, 150)), 90000);
+    t.checkExpect(snake.allPowered(), true);
+    GameEngine big = new GameEngine(400, 300, 0, new KruskalGenerator(), 5);
+    for (int k = 0; k < 40000; k++) {
+      big.packed.rotate(r.nextInt(120000));
+    }
+    PackedBoard copy = new PackedBoard(400, 300);
+    System.arraycopy(big.packed.cells, 0, copy.cells, 0, 120000);
+    int station = big.packed.index(big.powerRow, big.powerCol);
+    t.checkExpect(pf.flood(big.packed, station), new PowerFlood().flood(copy, station));
+    t.checkExpect(big.packed.cells, copy.cells);
+    pool.shutdown();
+  }
+  
+  // tests rotated from PowerFlood against flooding the whole board again
+  void testRotated(Tester t) {
+    this.init();
+    PowerFlood pf = new PowerFlood();
+    PackedBoard pb = lea1.engine.packed;
+    pf.flood(pb, pb.index(2, 2));
+    // cuts off the bottom left corner of the board
+    pb.rotate(pb.index(3, 0));
+    t.checkExpect(pf.rotated(pb, pb.index(2, 2), pb.index(3, 0)), 23);
+    t.checkExpect(pb.has(pb.index(4, 0), PackedBoard.POWERED), false);
+    // reconnects it
+    pb.rotate(pb.index(3, 0));
+    t.checkExpect(pf.rotated(pb, pb.index(2, 2), pb.index(3, 0)), 25);
+    t.checkExpect(pb.has(pb.index(4, 0), PackedBoard.POWERED), true);
+    
+    // rotates random tiles of a random board, checking every step
+    LightEmAll lea = new LightEmAll(8, 6, 0);
+    PackedBoard full = new PackedBoard(8, 6);
+    PowerFlood fullFlood = new PowerFlood();
+    int station = lea.engine.packed.index(lea.engine.powerRow, lea.engine.powerCol);
+    pf.flood(lea.engine.packed, station);
+    SplittableRandom r = new SplittableRandom();
+    for (int i = 0; i < 500; i++) {
+      int tile = r.nextInt(48);
+      lea.engine.packed.rotate(tile);
+      int count = pf.rotated(lea.engine.packed, station, tile);
+      System.arraycopy(lea.engine.packed.cells, 0, full.cells, 0, 48);
+      t.checkExpect(count, fullFlood.flood(full, station));
+      t.checkExpect(lea.engine.packed.cells, full.cells);
+    }
+  }
+  
+  // tests power limited to a radius against working out every distance from scratch
+  void testRadius(Tester t) {
+    // a straight wire powers as far as the radius reaches
+    PackedBoard line = new PackedBoard(6, 1);
+    for (int tile = 0; tile < 5; tile++) {
+      line.connect(tile, tile + 1);
+    }
+    PowerFlood pf = new PowerFlood();
+    pf.limit(2);
+    t.checkExpect(pf.flood(line, 1), 4);
+    t.checkExpect(line.has(3, PackedBoard.POWERED), true);
+    t.checkExpect(line.has(4, PackedBoard.POWERED), false);
+    t.checkExpect(pf.dist[3], 2);
+    t.checkExpect(pf.moved(line, 2), 5);
+    t.checkExpect(line.has(0, PackedBoard.POWERED), true);
+    // rotating a tile on the way cuts off everything past it
+    line.rotate(3);
+    t.checkExpect(pf.rotated(line, 2, 3), 3);
+    t.checkExpect(line.has(4, PackedBoard.POWERED), false);
+    line.rotate(3);
+    line.rotate(3);
+    line.rotate(3);
+    t.checkExpect(pf.rotated(line, 2, 3), 5);
+    t.checkExpect(pf.changedAll, false);
+    t.checkExpect(pf.changedCount, 2);
+    t.checkExpect(pf.dist[4], 2);
+    
+    // rotates random tiles of scrambled boards, which can have loops, checking every step
+    SplittableRandom r = new SplittableRandom(11);
+    for (int game = 0; game < 6; game++) {
+      GameEngine engine = new GameEngine(9, 8, 0, new KruskalGenerator(), game);
+      engine.limitPower(true);
+      t.checkExpect(engine.flood.radius, 4);
+      for (int i = 0; i < 300; i++) {
+        if (r.nextInt(10) == 0) {
+          engine.moveStation(1 << r.nextInt(4));
+        }
+        else {
+          int tile = r.nextInt(72);
+          engine.rotate(tile / 9, tile % 9);
+        }
+        int[] dist = this.wireDistances(engine.packed, 
+            engine.packed.index(engine.powerRow, engine.powerCol));
+        int powered = 0;
+        for (int tile = 0; tile < 72; tile++) {
+          boolean within = dist[tile] <= 4;
+          t.checkExpect(engine.packed.has(tile, PackedBoard.POWERED), within);
+          if (within) {
+            powered++;
+            t.checkExpect(engine.flood.dist[tile], dist[tile]);
+          }
+        }
+        t.checkExpect(engine.flood.count, powered);
+      }
+    }
+    // moving the station on a big board only looks at the tiles near it
+    PackedBoard big = new PackedBoard(500, 500);
+    for (int row = 0; row < 500; row++) {
+      for (int col = 0; col < 499; col++) {
+        big.connect(big.index(row, col), big.index(row, col + 1));
+      }
+      if (row < 499) {
+        big.connect(big.index(row, 0), big.index(row + 1, 0));
+      }
+    }
+    PowerFlood near = new PowerFlood();
+    near.limit(3);
+    int from = big.index(250, 250);
+    t.checkExpect(near.flood(big, from), 7);
+    // a flood would turn off this tile, which nothing powers
+    int far = big.index(400, 100);
+    big.set(far, PackedBoard.POWERED);
+    t.checkExpect(near.moved(big, from + 1), 7);
+    t.checkExpect(big.has(far, PackedBoard.POWERED), true);
+    t.checkExpect(near.changedAll, false);
+    for (int i = 0; i < near.changedCount; i++) {
+      t.checkNumRange(near.changed[i], from - 3, from + 5);
+    }
+    for (int tile = from - 4; tile <= from + 5; tile++) {
+      t.checkExpect(big.has(tile, PackedBoard.POWERED), tile >= from - 2 && tile <= from + 4);
+    }
+    t.checkExpect(near.dist[from + 4], 3);
+    
+    // limiting power again floods every tile connected to the station
+    GameEngine engine = new GameEngine(9, 8, 0, new KruskalGenerator(), 1);
+    int all = engine.flood.count;
+    engine.limitPower(true);
+    t.checkExpect(engine.flood.count <= all, true);
+    engine.limitPower(false);
+    t.checkExpect(engine.flood.count, all);
+    LightEmAll lea = new LightEmAll(9, 8, 0, new KruskalGenerator(), 1);
+    lea.limitPower(true);
+    t.checkExpect(lea.board.get(lea.engine.powerRow).get(lea.engine.powerCol).powered, true);
+  }
+  
+  // how many wires each tile of the given board is from the given station,
+  // or Integer.MAX_VALUE if they are not connected
+  int[] wireDistances(PackedBoard b, int station) {
+    int[] dist = new int[b.cells.length];
+    Arrays.fill(dist, Integer.MAX_VALUE);
+    dist[station] = 0;
+    ArrayList<Integer> queue = new ArrayList<Integer>();
+    queue.add(station);
+    for (int i = 0; i < queue.size(); i++) {
+      int tile = queue.get(i);
+      for (int dir = 1; dir <= b.wireMask; dir <<= 1) {
+        if (b.connected(tile, dir) && dist[b.neighbor(tile, dir)] == Integer.MAX_VALUE) {
+          dist[b.neighbor(tile, dir)] = dist[tile] + 1;
+          queue.add(b.neighbor(tile, dir));
+        }
+      }
+    }
+    return dist;
+  }
+  
+  // tests the neighbors of square grids, tori and hex grids
+  void testTopology(Tester t) {
+    // a square grid has the neighbors it always had, with or without a table
+    PackedBoard square = new PackedBoard(7, 5);
+    PackedBoard big = new PackedBoard(1000, 1000);
+    PackedBoard huge = new PackedBoard(2000, 1000);
+    PackedBoard plain = new PackedBoard(2000, 1000);
+    t.checkExpect(square.next, null);
+    t.checkExpect(square.neighbors().length, 140);
+    t.checkExpect(square.neighbors() == square.neighbors(), true);
+    t.checkExpect(big.neighbors().length, 4000000);
+    t.checkExpect(huge.neighbors().length, 8000000);
+    // a board without a table works its neighbors out instead
+    t.checkExpect(plain.next, null);
+    t.checkExpect(PackedBoard.tableFits(2000 * 2000, 6), true);
+    t.checkExpect(PackedBoard.tableFits(Integer.MAX_VALUE / 4 + 1, 4), false);
+    t.checkExpect(PackedBoard.tableFits(1L << 40, 4), false);
+    for (PackedBoard b : new PackedBoard[] {square, big, huge, plain}) {
+      for (int tile = 0; tile < b.cells.length; tile += b.cells.length / 35) {
+        int row = tile / b.width;
+        int col = tile % b.width;
+        t.checkExpect(b.neighbor(tile, PackedBoard.TOP), row > 0 ? tile - b.width : -1);
+        t.checkExpect(b.neighbor(tile, PackedBoard.BOTTOM), 
+            row < b.height - 1 ? tile + b.width : -1);
+        t.checkExpect(b.neighbor(tile, PackedBoard.LEFT), col > 0 ? tile - 1 : -1);
+        t.checkExpect(b.neighbor(tile, PackedBoard.RIGHT), col < b.width - 1 ? tile + 1 : -1);
+      }
+    }
+    t.checkExpect(huge.neighbor(1999, PackedBoard.RIGHT), -1);
+    t.checkExpect(huge.neighbor(1999, PackedBoard.BOTTOM), 3999);
+    t.checkExpect(plain.neighbor(1999, PackedBoard.RIGHT), -1);
+    t.checkExpect(plain.neighbor(1999, PackedBoard.BOTTOM), 3999);
+    t.checkExpect(big.neighbor(999, PackedBoard.RIGHT), -1);
+    t.checkExpect(big.neighbor(999, PackedBoard.BOTTOM), 1999);
+    // a game builds its table once, and its new boards take it over
+    GameEngine game = new GameEngine(6, 5, 0, new KruskalGenerator(), 2);
+    int[] table = game.packed.next;
+    t.checkExpect(table.length, 120);
+    game.restart();
+    t.checkExpect(game.packed.next == table, true);
+    // a torus wraps around
+    PackedBoard torus = new PackedBoard(4, 3, new TorusGrid());
+    t.checkExpect(torus.neighbor(0, PackedBoard.TOP), 8);
+    t.checkExpect(torus.neighbor(0, PackedBoard.LEFT), 3);
+    t.checkExpect(torus.neighbor(0, PackedBoard.BOTTOM), 4);
+    t.checkExpect(torus.neighbor(11, PackedBoard.RIGHT), 8);
+    t.checkExpect(torus.neighbor(11, PackedBoard.BOTTOM), 3);
+    t.checkConstructorException(
+        new IllegalArgumentException("A 2 by 5 board can't be laid out as a torus"),
+        "PackedBoard", 2, 5, new TorusGrid());
+    // odd rows of a hex grid are shifted to the right
+    PackedBoard hex = new PackedBoard(4, 3, new HexGrid());
+    t.checkExpect(hex.neighbor(5, HexGrid.UP_RIGHT), 2);
+    t.checkExpect(hex.neighbor(5, HexGrid.UP_LEFT), 1);
+    t.checkExpect(hex.neighbor(5, HexGrid.LEFT), 4);
+    t.checkExpect(hex.neighbor(5, HexGrid.DOWN_LEFT), 9);
+    t.checkExpect(hex.neighbor(5, HexGrid.DOWN_RIGHT), 10);
+    t.checkExpect(hex.neighbor(5, HexGrid.RIGHT), 6);
+    t.checkExpect(hex.neighbor(0, HexGrid.UP_RIGHT), -1);
+    t.checkExpect(hex.neighbor(0, HexGrid.DOWN_LEFT), -1);
+    t.checkExpect(hex.neighbor(0, HexGrid.DOWN_RIGHT), 4);
+    t.checkExpect(hex.neighbor(10, HexGrid.UP_LEFT), 5);
+    t.checkExpect(hex.neighbor(10, HexGrid.UP_RIGHT), 6);
+    t.checkExpect(hex.opposite(HexGrid.UP_RIGHT), HexGrid.DOWN_LEFT);
+    t.checkExpect(hex.opposite(HexGrid.RIGHT), HexGrid.LEFT);
+    // every wire leads to a tile whose opposite wire leads back
+    for (PackedBoard b : new PackedBoard[] {square, torus, hex, 
+        new PackedBoard(5, 6, new HexGrid()), new PackedBoard(3, 7, new TorusGrid())}) {
+      for (int tile = 0; tile < b.cells.length; tile++) {
+        for (int dir = 1; dir <= b.wireMask; dir <<= 1) {
+          int other = b.neighbor(tile, dir);
+          if (other != -1) {
+            t.checkExpect(b.neighbor(other, b.opposite(dir)), tile);
+          }
+        }
+      }
+    }
+    // hex tiles turn a sixth at a time
+    hex.set(5, HexGrid.UP_RIGHT | HexGrid.LEFT | PackedBoard.POWERED);
+    hex.rotate(5);
+    t.checkExpect(hex.wires(5), HexGrid.UP_LEFT | HexGrid.DOWN_LEFT);
+    t.checkExpect(hex.has(5, PackedBoard.POWERED), true);
+    for (int i = 0; i < 5; i++) {
+      hex.rotate(5);
+    }
+    t.checkExpect(hex.wires(5), HexGrid.UP_RIGHT | HexGrid.LEFT);
+    hex.connect(0, 4);
+    t.checkExpect(hex.wires(4), HexGrid.UP_LEFT);
+    t.checkException(new IllegalArgumentException("Tiles 0 and 2 are not adjacent"),
+        hex, "connect", 0, 2);
+  }
+  
+  // tests games on tori and hex grids
+  void testTopologyGames(Tester t) {
+    ITopology[] topologies = {new TorusGrid(), new HexGrid()};
+    for (ITopology topology : topologies) {
+      for (int seed = 0; seed < 5; seed++) {
+        GameEngine game = new GameEngine(topology, 7, 6, (seed % 3 - 1) / 3.0, 
+            new KruskalGenerator(), seed);
+        t.checkExpect(game.packed.topology, topology);
+        t.checkExpect(game.tree.count, 41);
+        // the tree powers every tile
+        PackedBoard solved = new PackedBoard(7, 6, topology);
+        for (int e = 0; e < game.tree.count; e++) {
+          solved.connect(game.tree.from[e], game.tree.to[e]);
+        }
+        t.checkExpect(new PowerFlood().flood(solved, 0), 42);
+        // and following the plan solves the game
+        for (int tile = 0; tile < 42; tile++) {
+          for (int i = 0; i < game.plan.turns[tile]; i++) {
+            game.rotate(tile / 7, tile % 7);
+          }
+        }
+        t.checkExpect(game.isSolved(), true);
+        t.checkExpect(game.plan.efficiency(game.clicks), 1.0);
+        game.restart();
+        t.checkExpect(game.packed.topology, topology);
+        t.checkExpect(game.moveStation(64), false);
+        // power limited to a radius follows the wires of the topology
+        game.limitPower(true);
+        for (int i = 0; i < 100; i++) {
+          game.rotate(i * 5 % 6, i * 3 % 7);
+          int[] dist = this.wireDistances(game.packed, 
+              game.packed.index(game.powerRow, game.powerCol));
+          for (int tile = 0; tile < 42; tile++) {
+            t.checkExpect(game.packed.has(tile, PackedBoard.POWERED), dist[tile] <= 3);
+          }
+        }
+      }
+    }
+    GameEngine hexGame = new GameEngine(new HexGrid(), 5, 5, 0, new KruskalGenerator(), 2);
+    t.checkException(new IllegalArgumentException("Only square grids can be solved"),
+        new BoardSolver(), "solve", hexGame.packed, 2);
+    ForkJoinPool pool = new ForkJoinPool(2);
+    PowerFlood parallel = new PowerFlood();
+    parallel.parallel(pool, 0);
+    PackedBoard copy = new PackedBoard(5, 5, new HexGrid());
+    System.arraycopy(hexGame.packed.cells, 0, copy.cells, 0, 25);
+    int station = hexGame.packed.index(hexGame.powerRow, hexGame.powerCol);
+    t.checkExpect(parallel.flood(copy, station), hexGame.flood.count);
+    t.checkExpect(copy.cells, hexGame.packed.cells);
+    pool.shutdown();
+  }
+  
+  // tests turning tiles by table
+  void testTurnTables(Tester t) {
+    PackedBoard[] boards = {new PackedBoard(3, 3), new PackedBoard(3, 3, new HexGrid())};
+    for (PackedBoard b : boards) {
+      for (int wires = 0; wires <= b.wireMask; wires++) {
+        int turned = wires;
+        for (int turns = 0; turns < b.directions; turns++) {
+          t.checkExpect(b.turn(wires, turns), turned);
+          b.cells[4] = (byte) (PackedBoard.POWERED | wires);
+          b.rotate(4, turns);
+          t.checkExpect((int) b.cells[4] & 255, PackedBoard.POWERED | turned);
+          turned = ((turned << 1) | (turned >> (b.directions - 1))) & b.wireMask;
+        }
+        t.checkExpect(turned, wires);
+      }
+    }
+    // a GamePiece turns the same way as a packed tile
+    for (int wires = 0; wires < 16; wires++) {
+      GamePiece gp = new GamePiece(false, false, false, false, 0, 0);
+      gp.setWires(wires);
+      t.checkExpect(gp.wires(), wires);
+      gp.rotate();
+      t.checkExpect(gp.wires(), boards[0].turn(wires));
+    }
+  }
+  
+  // tests rotating many tiles at once
+  void testRotateAll(Tester t) {
+    ITopology[] topologies = {PackedBoard.GRID, new HexGrid()};
+    for (ITopology topology : topologies) {
+      for (int seed = 0; seed < 5; seed++) {
+        // following the plan in one batch solves the game
+        GameEngine game = new GameEngine(topology, 7, 6, 0, new KruskalGenerator(), seed);
+        int[] tiles = new int[42];
+        int[] turns = new int[42];
+        for (int tile = 0; tile < 42; tile++) {
+          tiles[tile] = tile;
+          turns[tile] = game.plan.turns[tile];
+        }
+        t.checkExpect(game.rotateAll(tiles, turns, 42), true);
+        t.checkExpect(game.isSolved(), true);
+        t.checkExpect(game.clicks, game.plan.rotations);
+        t.checkExpect(game.rotateAll(tiles, turns, 1), false);
+        // small and big batches end up where one rotation at a time does
+        for (int count = 1; count < 40; count += 12) {
+          GameEngine batched = new GameEngine(topology, 7, 6, 0, new KruskalGenerator(), seed);
+          GameEngine single = new GameEngine(topology, 7, 6, 0, new KruskalGenerator(), seed);
+          batched.limitPower(seed % 2 == 0);
+          single.limitPower(seed % 2 == 0);
+          for (int i = 0; i < count; i++) {
+            tiles[i] = (i * 17 + seed) % 42;
+            turns[i] = i % 9 - 4;
+            for (int j = 0; j < Math.floorMod(turns[i], topology.directions()); j++) {
+              single.rotate(tiles[i] / 7, tiles[i] % 7);
+            }
+          }
+          if (!single.isSolved()) {
+            t.checkExpect(batched.rotateAll(tiles, turns, count), true);
+            t.checkExpect(batched.packed.cells, single.packed.cells);
+            t.checkExpect(batched.clicks, single.clicks);
+            t.checkExpect(batched.flood.count, single.flood.count);
+          }
+        }
+      }
+    }
+    // small batches update power once, around the rotated tiles, and power ends up
+    // as a full flood would leave it, with or without a radius
+    SplittableRandom r = new SplittableRandom(5);
+    int[] batchTiles = new int[4];
+    int[] batchTurns = new int[4];
+    for (int seed = 0; seed < 6; seed++) {
+      GameEngine game = new GameEngine(9, 8, 0, new KruskalGenerator(), seed);
+      game.limitPower(seed % 2 == 1);
+      int station = game.packed.index(game.powerRow, game.powerCol);
+      for (int batch = 0; batch < 60 && !game.isSolved(); batch++) {
+        int count = 1 + r.nextInt(4);
+        for (int i = 0; i < count; i++) {
+          batchTiles[i] = r.nextInt(72);
+          batchTurns[i] = r.nextInt(7) - 3;
+        }
+        boolean touchesStation = false;
+        for (int i = 0; i < count; i++) {
+          touchesStation = touchesStation || batchTiles[i] == station;
+        }
+        t.checkExpect(game.rotateAll(batchTiles, batchTurns, count), true);
+        t.checkExpect(game.flood.changedAll, touchesStation);
+        PackedBoard copy = new PackedBoard(9, 8);
+        System.arraycopy(game.packed.cells, 0, copy.cells, 0, 72);
+        PowerFlood fresh = new PowerFlood();
+        fresh.limit(game.flood.radius);
+        t.checkExpect(fresh.flood(copy, station), game.flood.count);
+        t.checkExpect(copy.cells, game.packed.cells);
+        for (int tile = 0; tile < 72 && seed % 2 == 1; tile++) {
+          if (copy.has(tile, PackedBoard.POWERED)) {
+            t.checkExpect(game.flood.dist[tile], fresh.dist[tile]);
+          }
+        }
+      }
+    }
+    // a tile off the board turns down the whole batch
+    GameEngine game = new GameEngine(4, 4, 0, new KruskalGenerator(), 3);
+    byte[] before = game.packed.cells.clone();
+    int[] tiles = {0, 16};
+    int[] turns = {1, 1};
+    t.checkExpect(game.rotateAll(tiles, turns, 2), false);
+    t.checkExpect(game.packed.cells, before);
+    t.checkExpect(game.clicks, 0);
+    // but only the tiles counted are looked at
+    t.checkExpect(game.rotateAll(tiles, turns, 1), true);
+    t.checkExpect(game.clicks, 1);
+    // batches are logged and replayed
+    game = new GameEngine(5, 5, 0, new KruskalGenerator(), 4);
+    game.log = new MoveLog();
+    int[] some = {3, 1, 24, 1};
+    int[] steps = {-1, 2, 5, 0};
+    game.rotate(2, 2);
+    game.tick();
+    game.rotateAll(some, steps, 4);
+    game.rotate(0, 0);
+    t.checkExpect(game.log.moves, 3);
+    GameEngine replayed = game.log.replay(new GameEngine(5, 5, 0, new KruskalGenerator(), 4));
+    t.checkExpect(replayed.packed.cells, game.packed.cells);
+    t.checkExpect(replayed.clicks, game.clicks);
+    t.checkExpect(replayed.ticks, game.ticks);
+    // and over the server
+    GameSession session = new GameSession(null, null);
+    GameServer.answer(session, "NEW 3 3 5");
+    t.checkExpect(GameServer.answer(session, "BATCH 0 0 1 2 2 3"), 
+        "OK 1 4 " + (session.game.isSolved() ? 1 : 0));
+    t.checkExpect(GameServer.answer(session, "BATCH 0 0 1 3 0 1"), 
+        "OK 0 4 " + (session.game.isSolved() ? 1 : 0));
+    t.checkExpect(GameServer.answer(session, "BATCH 0 0"), "ERR Unknown request BATCH 0 0");
+  }
+  
+  // tests moved from PowerFlood
+  void testMoved(Tester t) {
+    this.init();
+    PowerFlood pf = new PowerFlood();
+    PackedBoard pb = lea1.engine.packed;
+    pf.flood(pb, pb.index(2, 2));
+    t.checkExpect(pf.moved(pb, pb.index(2, 3)), 25);
+    t.checkExpect(pf.station, pb.index(2, 3));
+    t.checkExpect(pf.parent[pb.index(2, 3)], (byte) 0);
+    t.checkExpect(pf.parent[pb.index(2, 2)], (byte) PackedBoard.RIGHT);
+    // rotations after the move are worked out from the new station
+    pb.rotate(pb.index(2, 2));
+    t.checkExpect(pf.rotated(pb, pb.index(2, 3), pb.index(2, 2)), 25);
+    pb.rotate(pb.index(2, 3));
+    t.checkExpect(pf.rotated(pb, pb.index(2, 3), pb.index(2, 3)), 25);
+    pb.rotate(pb.index(2, 4));
+    t.checkExpect(pf.rotated(pb, pb.index(2, 3), pb.index(2, 4)), 23);
+    t.checkExpect(pb.has(pb.index(0, 4), PackedBoard.POWERED), false);
+  }
+  
+  // tests that a board that isn't square can be generated
+  void testNonSquareBoard(Tester t) {
+    LightEmAll wide = new LightEmAll(6, 2, 0);
+    t.checkExpect(wide.board.size(), 2);
+    t.checkExpect(wide.board.get(0).size(), 6);
+    t.checkExpect(wide.mst.size(), 11);
+  }
+  
+  // tests find and union from BucketKruskal
+  void testBucketUnion(Tester t) {
+    BucketKruskal bk = new BucketKruskal(4);
+    t.checkExpect(bk.find(2), 2);
+    t.checkExpect(bk.union(0, 1), true);
+    t.checkExpect(bk.union(2, 3), true);
+    t.checkExpect(bk.union(1, 0), false);
+    t.checkExpect(bk.find(0) == bk.find(1), true);
+    t.checkExpect(bk.find(0) == bk.find(2), false);
+    t.checkExpect(bk.union(1, 3), true);
+    t.checkExpect(bk.find(0) == bk.find(3), true);
+  }
+  
+  // tests run from BucketKruskal
+  void testBucketRun(Tester t) {
+    // a square with one diagonal, where the lightest edges come last
+    int[] from = new int[] {0, 1, 2, 3, 0};
+    int[] to = new int[] {1, 2, 3, 0, 2};
+    int[] weight = new int[] {5, 4, 3, 1, 1};
+    t.checkExpect(new BucketKruskal(4).run(from, to, weight, 5, 6), new int[] {3, 4, 1});
+    // only looks at the first count edges
+    t.checkExpect(new BucketKruskal(4).run(from, to, weight, 2, 6), new int[] {1, 0});
+    // picks the same edges as Kruskal on a 3x3 grid
+    this.init();
+    ArrayList<Edge> edges = new ArrayList<Edge>();
+    ArrayList<CartPt> coords = new ArrayList<CartPt>();
+    int[] gridFrom = new int[12];
+    int[] gridTo = new int[12];
+    int[] gridWeight = new int[12];
+    for (int i = 0; i < 9; i++) {
+      coords.add(lea2.nodes.get(i).pointCoords());
+      if (i % 3 < 2) {
+        edges.add(new Edge(lea2.nodes.get(i), lea2.nodes.get(i + 1), (i * 7) % 5));
+      }
+      if (i < 6) {
+        edges.add(new Edge(lea2.nodes.get(i), lea2.nodes.get(i + 3), (i * 3) % 4));
+      }
+    }
+    for (int i = 0; i < 12; i++) {
+      Edge e = edges.get(i);
+      gridFrom[i] = e.fromNode.row * 3 + e.fromNode.col;
+      gridTo[i] = e.toNode.row * 3 + e.toNode.col;
+      gridWeight[i] = e.weight;
+    }
+    ArrayList<Edge> bucketTree = new ArrayList<Edge>();
+    for (int i : new BucketKruskal(9).run(gridFrom, gridTo, gridWeight, 12, 5)) {
+      bucketTree.add(edges.get(i));
+    }
+    t.checkExpect(bucketTree.size(), 8);
+    t.checkExpect(new Kruskal(coords, new ArrayList<Edge>(edges)).run(), bucketTree);
+  }
+  
   // tests onTick from LightEmAll
   void testOnTick(Tester t) {
     this.init();
-    t.checkExpect(this.lea2.ticks, 0);
+    t.checkExpect(this.lea2.engine.ticks, 0);
     lea2.onTick();
-    t.checkExpect(this.lea2.ticks, 1);
+    t.checkExpect(this.lea2.engine.ticks, 1);
   }
+}
@@ -0,0 +1,574 @@
+import java.io.FileWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+// benchmarks of board generation, power, rotation, win detection and drawing
+// over board sizes and the biases a restart can pick, measured the way JMH does:
+// warmup iterations, then timed iterations of as many calls as fit in the iteration time,
+// reporting the average time and, for benchmarks that run on one thread,
+// the bytes allocated per call
+// JMH itself cannot be used, since it refuses benchmarks in the default package
+// and everything it would benchmark is package-private there
+// runs headless with
+//   java LightEmAllBenchmarks [-b name,...] [-s size,...] [-p bias,...] [-wi n] [-i n]
+//       [-t millis] [-rf file]
+// where biases are in thirds, so -1, 0 and 1 are the three a restart picks,
+// and writes JSON in JMH's result format to the -rf file, jmh-result.json by default
+class LightEmAllBenchmarks {
+
+  // runs the benchmarks picked by the given options
+  public static void main(String[] args) throws Exception {
+    BenchmarkRunner runner = new BenchmarkRunner();
+    String names = "";
+    String file = "jmh-result.json";
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      String value = args[i + 1];
+      if (args[i].equals("-b")) {
+        names = value;
+      }
+      else if (args[i].equals("-s")) {
+        runner.sizes = BenchmarkRunner.ints(value);
+      }
+      else if (args[i].equals("-p")) {
+        runner.biases = BenchmarkRunner.ints(value);
+      }
+      else if (args[i].equals("-wi")) {
+        runner.warmups = Integer.parseInt(value);
+      }
+      else if (args[i].equals("-i")) {
+        runner.iterations = Integer.parseInt(value);
+      }
+      else if (args[i].equals("-t")) {
+        runner.iterationNanos = Long.parseLong(value) * 1000000;
+      }
+      else if (args[i].equals("-rf")) {
+        file = value;
+      }
+      else {
+        throw new IllegalArgumentException("Unknown option " + args[i]);
+      }
+    }
+    for (IBenchmark b : LightEmAllBenchmarks.all()) {
+      if (names.isEmpty() || Arrays.asList(names.split(",")).contains(b.name())) {
+        runner.benchmarks.add(b);
+      }
+    }
+    // the recursive GamePiece.power needs a deep stack
+    Thread thread = new Thread(null, runner, "benchmarks", 1L << 29);
+    thread.start();
+    thread.join();
+    try (FileWriter out = new FileWriter(file)) {
+      out.write(runner.json());
+    }
+  }
+
+  // every benchmark
+  static ArrayList<IBenchmark> all() {
+    return new ArrayList<IBenchmark>(Arrays.asList(
+        new GenerateBenchmark("createMST", new KruskalGenerator()),
+        new GenerateBenchmark("prim", new PrimGenerator()),
+        new GenerateBenchmark("wilson", new WilsonGenerator()),
+        new GenerateBenchmark("boruvka", new BoruvkaGenerator()),
+        new GenerateBenchmark("parallelBoruvka", new ParallelBoruvkaGenerator()),
+        new KruskalRunBenchmark(), new BoardInitBenchmark(), new FloodBenchmark(false),
+        new FloodBenchmark(true),
+        new GamePiecePowerBenchmark(), new RotateBenchmark(), new RotateAllBenchmark(),
+        new EndGameBenchmark(),
+        new AllPoweredBenchmark(), new MakeSceneBenchmark(false),
+        new MakeSceneBenchmark(true)));
+  }
+
+}
+
+// runs benchmarks over every size and bias, collecting the results
+class BenchmarkRunner implements Runnable {
+  ArrayList<IBenchmark> benchmarks;
+  int[] sizes;
+  int[] biases;
+  int warmups;
+  int iterations;
+  long iterationNanos;
+  // the results so far, as JSON objects
+  ArrayList<String> results;
+  // where results of the calls go, so that they are not optimized away
+  volatile Object sink;
+
+  BenchmarkRunner() {
+    this.benchmarks = new ArrayList<IBenchmark>();
+    this.sizes = new int[] {10, 100, 1000, 2000};
+    this.biases = new int[] {-1, 0, 1};
+    this.warmups = 3;
+    this.iterations = 5;
+    this.iterationNanos = 1000000000L;
+    this.results = new ArrayList<String>();
+  }
+
+  // the numbers in the given comma separated list
+  static int[] ints(String list) {
+    String[] parts = list.split(",");
+    int[] result = new int[parts.length];
+    for (int i = 0; i < parts.length; i++) {
+      result[i] = Integer.parseInt(parts[i].trim());
+    }
+    return result;
+  }
+
+  // runs every benchmark at every size and bias it supports
+  public void run() {
+    for (IBenchmark b : benchmarks) {
+      for (int size : sizes) {
+        for (int bias : biases) {
+          if (b.supports(size)) {
+            this.measure(b, size, bias);
+          }
+        }
+      }
+    }
+  }
+
+  // measures the given benchmark at the given size and bias, in thirds
+  void measure(IBenchmark b, int size, int bias) {
+    b.setup(size, bias / 3.0, new SplittableRandom(size * 31L + bias));
+    double[] times = new double[iterations];
+    double[] bytes = new double[iterations];
+    for (int i = 0; i < warmups + iterations; i++) {
+      long calls = 0;
+      long allocated = BenchmarkRunner.allocated();
+      long start = System.nanoTime();
+      long elapsed = 0;
+      while (elapsed < iterationNanos) {
+        this.sink = b.run();
+        calls++;
+        elapsed = System.nanoTime() - start;
+      }
+      if (i >= warmups) {
+        times[i - warmups] = elapsed / 1000.0 / calls;
+        bytes[i - warmups] = (BenchmarkRunner.allocated() - allocated) / (double) calls;
+      }
+    }
+    String result = "  {\n    \"benchmark\" : \"LightEmAllBenchmarks." + b.name() + "\",\n"
+        + "    \"mode\" : \"avgt\",\n    \"threads\" : 1,\n    \"forks\" : 1,\n"
+        + "    \"warmupIterations\" : " + warmups + ",\n"
+        + "    \"measurementIterations\" : " + iterations + ",\n"
+        + "    \"params\" : {\n      \"size\" : \"" + size + "\",\n      \"bias\" : \"" + bias
+        + "\"\n    },\n"
+        + "    \"primaryMetric\" : " + BenchmarkRunner.metric(times, "us/op");
+    // allocations on other threads are not counted, so they are only reported
+    // for benchmarks that do all of their work on this one
+    if (b.oneThread()) {
+      result += ",\n    \"secondaryMetrics\" : {\n      \"\u00b7gc.alloc.rate.norm\" : "
+          + BenchmarkRunner.metric(bytes, "B/op") + "\n    }";
+    }
+    results.add(result + "\n  }");
+    System.out.println(b.name() + " size " + size + " bias " + bias + ": "
+        + BenchmarkRunner.mean(times) + " us/op, " 
+        + (b.oneThread() ? BenchmarkRunner.mean(bytes) + " B/op" : "B/op not measured"));
+  }
+
+  // the bytes this thread has allocated so far, or 0 if the JVM cannot tell
+  // this leaves out whatever other threads allocate on its behalf, such as a fork-join pool's
+  static long allocated() {
+    java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes();
+    }
+    return 0;
+  }
+
+  // the average of the given samples
+  static double mean(double[] samples) {
+    double sum = 0;
+    for (double sample : samples) {
+      sum += sample;
+    }
+    return sum / samples.length;
+  }
+
+  // the given samples as a JMH metric, whose error is the half width of a
+  // 99.9% confidence interval, taking the samples to be normally distributed
+  static String metric(double[] samples, String unit) {
+    double mean = BenchmarkRunner.mean(samples);
+    double squares = 0;
+    for (double sample : samples) {
+      squares += (sample - mean) * (sample - mean);
+    }
+    double error = samples.length < 2 ? Double.NaN
+        : 3.291 * Math.sqrt(squares / (samples.length - 1) / samples.length);
+    StringBuilder raw = new StringBuilder();
+    for (int i = 0; i < samples.length; i++) {
+      raw.append(i == 0 ? "" : ", ").append(samples[i]);
+    }
+    return "{\n        \"score\" : " + mean + ",\n        \"scoreError\" : "
+        + (Double.isNaN(error) ? "\"NaN\"" : Double.toString(error))
+        + ",\n        \"scoreUnit\" : \"" + unit + "\",\n        \"rawData\" : [ [ " + raw
+        + " ] ]\n      }";
+  }
+
+  // all the results so far, as a JSON array
+  public String json() {
+    return "[\n" + String.join(",\n", results) + "\n]\n";
+  }
+
+}
+
+// something to benchmark, set up again for each size and bias
+interface IBenchmark {
+  // the name the results are reported under
+  String name();
+
+  // whether the benchmark can run on boards of the given size in reasonable time
+  boolean supports(int size);
+
+  // whether the benchmark does all of its work on the thread that runs it,
+  // which is the only thread whose allocations are measured
+  boolean oneThread();
+
+  // gets ready to run on a size by size board with the given bias
+  void setup(int size, double bias, SplittableRandom rand);
+
+  // runs once, returning what it made so that it is not optimized away
+  Object run();
+}
+
+// generates the spanning tree of a board, as createMST does
+class GenerateBenchmark implements IBenchmark {
+  String name;
+  IMazeGenerator generator;
+  int size;
+  double bias;
+  SplittableRandom rand;
+
+  GenerateBenchmark(String name, IMazeGenerator generator) {
+    this.name = name;
+    this.generator = generator;
+  }
+
+  public String name() {
+    return name;
+  }
+
+  public boolean supports(int size) {
+    return true;
+  }
+
+  public boolean oneThread() {
+    return !(generator instanceof ParallelBoruvkaGenerator);
+  }
+
+  public void setup(int size, double bias, SplittableRandom rand) {
+    this.size = size;
+    this.bias = bias;
+    this.rand = rand;
+  }
+
+  public Object run() {
+    return generator.generate(size, size, bias, rand.split());
+  }
+
+}
+
+// runs the original Kruskal over GamePieces and Edges, which only scales to small boards
+// each run sorts a fresh copy of the edges, since Kruskal sorts the list it is given
+class KruskalRunBenchmark implements IBenchmark {
+  ArrayList<CartPt> coords;
+  ArrayList<Edge> edges;
+
+  public String name() {
+    return "kruskalRun";
+  }
+
+  public boolean supports(int size) {
+    return size <= 100;
+  }
+
+  public boolean oneThread() {
+    return true;
+  }
+
+  public void setup(int size, double bias, SplittableRandom rand) {
+    ArrayList<GamePiece> nodes = new ArrayList<GamePiece>();
+    this.coords = new ArrayList<CartPt>();
+    for (int i = 0; i < size * size; i++) {
+      nodes.add(new GamePiece(false, false, false, false, i % size, i / size));
+      coords.add(nodes.get(i).pointCoords());
+    }
+    GridEdges grid = new GridEdges(size, size, bias, rand);
+    this.edges = new ArrayList<Edge>();
+    for (int e = 0; e < grid.count; e++) {
+      edges.add(new Edge(nodes.get(grid.from[e]), nodes.get(grid.to[e]), grid.weight[e]));
+    }
+  }
+
+  public Object run() {
+    return new Kruskal(coords, new ArrayList<Edge>(edges)).run();
+  }
+
+}
+
+// generates and scrambles a whole board, as a restart does
+class BoardInitBenchmark implements IBenchmark {
+  int size;
+  double bias;
+  SplittableRandom rand;
+
+  public String name() {
+    return "boardInit";
+  }
+
+  public boolean supports(int size) {
+    return true;
+  }
+
+  public boolean oneThread() {
+    return true;
+  }
+
+  public void setup(int size, double bias, SplittableRandom rand) {
+    this.size = size;
+    this.bias = bias;
+    this.rand = rand;
+  }
+
+  public Object run() {
+    return new GeneratedBoard(size, size, bias, new KruskalGenerator(), rand.nextLong());
+  }
+
+}
+
+// powers a board from scratch, on one thread or level by level on the common pool
+class FloodBenchmark implements IBenchmark {
+  boolean parallel;
+  GameEngine game;
+
+  FloodBenchmark(boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  public String name() {
+    return parallel ? "parallelPower" : "power";
+  }
+
+  public boolean supports(int size) {
+    return true;
+  }
+
+  public boolean oneThread() {
+    return !parallel;
+  }
+
+  public void setup(int size, double bias, SplittableRandom rand) {
+    this.game = new GameEngine(size, size, bias, new KruskalGenerator(), rand.nextLong());
+    if (parallel) {
+      game.flood.parallel(ForkJoinPool.commonPool(), 0);
+    }
+  }
+
+  public Object run() {
+    return game.updatePower();
+  }
+
+}
+
+// powers a board from scratch with the original recursive GamePiece.power
+class GamePiecePowerBenchmark implements IBenchmark {
+  ArrayList<ArrayList<GamePiece>> board;
+  GamePiece station;
+
+  public String name() {
+    return "gamePiecePower";
+  }
+
+  public boolean supports(int size) {
+    return size <= 100;
+  }
+
+  public boolean oneThread() {
+    return true;
+  }
+
+  public void setup(int size, double bias, SplittableRandom rand) {
+    LightEmAll game = new LightEmAll(size, size, bias, new KruskalGenerator(), rand.nextLong());
+    this.board = game.board;
+    this.station = board.get(game.engine.powerRow).get(game.engine.powerCol);
+  }
+
+  public Object run() {
+    for (ArrayList<GamePiece> row : board) {
+      for (GamePiece gp : row) {
+        gp.powered = false;
+      }
+    }
+    station.power(board);
+    return station;
+  }
+
+}
+
+// rotates random tiles, updating power around each
+class RotateBenchmark implements IBenchmark {
+  GameEngine game;
+  int[] tiles;
+  int next;
+
+  public String name() {
+    return "rotate";
+  }
+
+  public boolean supports(int size) {
+    return true;
+  }
+
+  public boolean oneThread() {
+    return true;
+  }
+
+  public void setup(int size, double bias, SplittableRandom rand) {
+    this.game = new GameEngine(size, size, bias, new KruskalGenerator(), rand.nextLong());
+    this.tiles = new int[4096];
+    for (int i = 0; i < tiles.length; i++) {
+      tiles[i] = rand.nextInt(size * size);
+    }
+    this.next = 0;
+  }
+
+  public Object run() {
+    int tile = tiles[next++ & (tiles.length - 1)];
+    game.packed.rotate(tile);
+    game.flood.rotated(game.packed, game.packed.index(game.powerRow, game.powerCol), tile);
+    return game.flood;
+  }
+
+}
+
+// rotates a random quarter of the tiles random steps in one batch, updating power once
+class RotateAllBenchmark implements IBenchmark {
+  GameEngine game;
+  int[] tiles;
+  int[] turns;
+
+  public String name() {
+    return "rotateAll";
+  }
+
+  public boolean supports(int size) {
+    return true;
+  }
+
+  public boolean oneThread() {
+    return true;
+  }
+
+  public void setup(int size, double bias, SplittableRandom rand) {
+    this.game = new GameEngine(size, size, bias, new KruskalGenerator(), rand.nextLong());
+    this.tiles = new int[Math.max(1, size * size / 4)];
+    this.turns = new int[tiles.length];
+    for (int i = 0; i < tiles.length; i++) {
+      tiles[i] = rand.nextInt(size * size);
+      turns[i] = 1 + rand.nextInt(3);
+    }
+  }
+
+  public Object run() {
+    // a batch that happens to solve the board would turn down the next one
+    if (!game.rotateAll(tiles, turns, tiles.length)) {
+      game.restart();
+    }
+    return game.flood;
+  }
+
+}
+
+// checks whether a game is won
+class EndGameBenchmark implements IBenchmark {
+  LightEmAll game;
+
+  public String name() {
+    return "endGame";
+  }
+
+  public boolean supports(int size) {
+    return true;
+  }
+
+  public boolean oneThread() {
+    return true;
+  }
+
+  public void setup(int size, double bias, SplittableRandom rand) {
+    this.game = new LightEmAll(size, size, bias, new KruskalGenerator(), rand.nextLong());
+  }
+
+  public Object run() {
+    return game.endGame();
+  }
+
+}
+
+// checks whether every tile is powered by looking at each, as endGame used to
+class AllPoweredBenchmark implements IBenchmark {
+  PackedBoard board;
+
+  public String name() {
+    return "allPowered";
+  }
+
+  public boolean supports(int size) {
+    return true;
+  }
+
+  public boolean oneThread() {
+    return true;
+  }
+
+  public void setup(int size, double bias, SplittableRandom rand) {
+    GameEngine game = new GameEngine(size, size, bias, new KruskalGenerator(), rand.nextLong());
+    // powers everything, so that the whole board is looked at
+    game.packed.clearPower();
+    for (int tile = 0; tile < game.packed.cells.length; tile++) {
+      game.packed.set(tile, PackedBoard.POWERED);
+    }
+    this.board = game.packed;
+  }
+
+  public Object run() {
+    return board.allPowered();
+  }
+
+}
+
+// draws a frame, either from scratch or from the last frame with nothing changed
+class MakeSceneBenchmark implements IBenchmark {
+  boolean retained;
+  LightEmAll game;
+
+  MakeSceneBenchmark(boolean retained) {
+    this.retained = retained;
+  }
+
+  public String name() {
+    return retained ? "makeSceneRetained" : "makeScene";
+  }
+
+  public boolean supports(int size) {
+    return true;
+  }
+
+  public boolean oneThread() {
+    return true;
+  }
+
+  public void setup(int size, double bias, SplittableRandom rand) {
+    this.game = new LightEmAll(size, size, bias, new KruskalGenerator(), rand.nextLong());
+    if (retained) {
+      game.retainScenes();
+    }
+  }
+
+  public Object run() {
+    return game.makeScene();
+  }
+
+}
@@ -0,0 +1,126 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+// plays many games on a server at once to measure its throughput and latency:
+// each client is a virtual thread with a connection of its own, which starts a game
+// and then rotates random tiles, timing every request
+// runs with java LoadGenerator [clients] [requests per client] [board size] [port],
+// starting a server of its own unless a port is given
+class LoadGenerator {
+  String host;
+  int port;
+  int clients;
+  int requests;
+  int size;
+
+  LoadGenerator(String host, int port, int clients, int requests, int size) {
+    this.host = host;
+    this.port = port;
+    this.clients = clients;
+    this.requests = requests;
+    this.size = size;
+  }
+
+  // measures a server and prints what it measured
+  public static void main(String[] args) throws Exception {
+    int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    int requests = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+    int size = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+    GameServer server = null;
+    int port;
+    if (args.length > 3) {
+      port = Integer.parseInt(args[3]);
+    }
+    else {
+      server = new GameServer(0);
+      port = server.port();
+    }
+    System.out.println(new LoadGenerator("localhost", port, clients, requests, size).run());
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  // runs every client to the end
+  // throws an IOException if any client could not talk to the server
+  public LoadResult run() throws IOException, InterruptedException {
+    LoadClient[] all = new LoadClient[clients];
+    Thread[] threads = new Thread[clients];
+    long start = System.nanoTime();
+    for (int i = 0; i < clients; i++) {
+      all[i] = new LoadClient(this, i);
+      threads[i] = Thread.ofVirtual().start(all[i]);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    long elapsed = System.nanoTime() - start;
+    long[] latencies = new long[clients * requests];
+    for (int i = 0; i < clients; i++) {
+      if (all[i].failure != null) {
+        throw all[i].failure;
+      }
+      System.arraycopy(all[i].latencies, 0, latencies, i * requests, requests);
+    }
+    return new LoadResult(clients, latencies, elapsed);
+  }
+
+}
+
+// one client of a load generator
+class LoadClient implements Runnable {
+  LoadGenerator load;
+  int id;
+  // how long each request took to answer, in nanoseconds
+  long[] latencies;
+  // what went wrong, or null if nothing did
+  IOException failure;
+
+  LoadClient(LoadGenerator load, int id) {
+    this.load = load;
+    this.id = id;
+    this.latencies = new long[load.requests];
+    this.failure = null;
+  }
+
+  public void run() {
+    SplittableRandom rand = new SplittableRandom(id);
+    try (Socket socket = new Socket(load.host, load.port)) {
+      socket.setTcpNoDelay(true);
+      BufferedReader in = new BufferedReader(
+          new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+      Writer out = new BufferedWriter(
+          new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+      this.request(in, out, "NEW " + load.size + " " + load.size + " " + id);
+      for (int i = 0; i < load.requests; i++) {
+        long start = System.nanoTime();
+        this.request(in, out, "ROTATE " + rand.nextInt(load.size) + " " + rand.nextInt(load.size));
+        latencies[i] = System.nanoTime() - start;
+      }
+      this.request(in, out, "QUIT");
+    }
+    catch (IOException e) {
+      this.failure = e;
+    }
+  }
+
+  // sends the given request and waits for its response
+  // throws an IOException if the server is gone or answers with an error
+  void request(BufferedReader in, Writer out, String request) throws IOException {
+    out.write(request);
+    out.write('\n');
+    out.flush();
+    String response = in.readLine();
+    if (response == null || !response.startsWith("OK")) {
+      throw new IOException("Server answered " + response + " to " + request);
+    }
+  }
+
+}
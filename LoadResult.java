@@ -0,0 +1,45 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// what a load generator measured
+class LoadResult {
+  int clients;
+  // how long every request took, sorted, in nanoseconds
+  long[] latencies;
+  // how long it took to run every client, in nanoseconds
+  long elapsed;
+
+  LoadResult(int clients, long[] latencies, long elapsed) {
+    this.clients = clients;
+    this.latencies = latencies;
+    this.elapsed = elapsed;
+    Arrays.sort(latencies);
+  }
+
+  // how many requests were answered per second
+  public double throughput() {
+    return latencies.length * 1e9 / elapsed;
+  }
+
+  // the latency in nanoseconds that the given fraction of requests took no longer than,
+  // or 0 if there were none
+  public long quantile(double fraction) {
+    if (latencies.length == 0) {
+      return 0;
+    }
+    int at = (int) Math.ceil(fraction * latencies.length) - 1;
+    return latencies[Math.max(0, Math.min(at, latencies.length - 1))];
+  }
+
+  public String toString() {
+    ArrayList<String> parts = new ArrayList<String>();
+    parts.add(clients + " clients, " + latencies.length + " requests");
+    parts.add(Math.round(this.throughput()) + " requests/s");
+    parts.add("p50 " + this.quantile(0.5) / 1000 + " us");
+    parts.add("p99 " + this.quantile(0.99) / 1000 + " us");
+    parts.add("p99.9 " + this.quantile(0.999) / 1000 + " us");
+    parts.add("max " + this.quantile(1) / 1000 + " us");
+    return String.join(", ", parts);
+  }
+
+}
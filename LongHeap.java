@@ -0,0 +1,48 @@
+import java.util.Arrays;
+
+// represents a binary min-heap of longs in a growable array
+class LongHeap {
+  long[] items;
+  int size;
+  
+  LongHeap() {
+    this.items = new long[16];
+    this.size = 0;
+  }
+  
+  // adds an item
+  public void push(long item) {
+    if (size == items.length) {
+      this.items = Arrays.copyOf(items, size * 2);
+    }
+    int i = size++;
+    // moves the item up until its parent is no bigger
+    while (i > 0 && items[(i - 1) / 2] > item) {
+      items[i] = items[(i - 1) / 2];
+      i = (i - 1) / 2;
+    }
+    items[i] = item;
+  }
+  
+  // removes and returns the smallest item
+  public long pop() {
+    long top = items[0];
+    long last = items[--size];
+    // moves the last item down from the top until its children are no smaller
+    int i = 0;
+    while (2 * i + 1 < size) {
+      int child = 2 * i + 1;
+      if (child + 1 < size && items[child + 1] < items[child]) {
+        child++;
+      }
+      if (items[child] >= last) {
+        break;
+      }
+      items[i] = items[child];
+      i = child;
+    }
+    items[i] = last;
+    return top;
+  }
+  
+}
@@ -0,0 +1,92 @@
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ReflectionException;
+
+// game metrics as a JMX MBean, with read only attributes for each path such as
+// makeSceneCount, makeSceneMeanNanos, makeSceneP50Nanos, makeSceneP99Nanos
+// and makeSceneMaxNanos, and a snapshot operation that describes them all
+class MetricsMBean implements DynamicMBean {
+  static final String[] STATS = {"Count", "MeanNanos", "P50Nanos", "P99Nanos", "MaxNanos"};
+  
+  GameMetrics metrics;
+  
+  MetricsMBean(GameMetrics metrics) {
+    this.metrics = metrics;
+  }
+  
+  public Object getAttribute(String attribute) throws AttributeNotFoundException {
+    for (int p = 0; p < GameMetrics.NAMES.length; p++) {
+      if (attribute.startsWith(GameMetrics.NAMES[p])) {
+        String stat = attribute.substring(GameMetrics.NAMES[p].length());
+        PathMetrics path = metrics.snapshot().path(p);
+        if (stat.equals("Count")) {
+          return path.count;
+        }
+        if (stat.equals("MeanNanos")) {
+          return path.meanNanos();
+        }
+        if (stat.equals("P50Nanos")) {
+          return path.quantileNanos(0.5);
+        }
+        if (stat.equals("P99Nanos")) {
+          return path.quantileNanos(0.99);
+        }
+        if (stat.equals("MaxNanos")) {
+          return path.maxNanos;
+        }
+      }
+    }
+    throw new AttributeNotFoundException("No such attribute " + attribute);
+  }
+  
+  public AttributeList getAttributes(String[] attributes) {
+    AttributeList result = new AttributeList();
+    for (String attribute : attributes) {
+      try {
+        result.add(new Attribute(attribute, this.getAttribute(attribute)));
+      }
+      catch (AttributeNotFoundException e) {
+        // leaves it out, as getAttributes does for attributes it cannot read
+      }
+    }
+    return result;
+  }
+  
+  public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+    throw new AttributeNotFoundException("Game metrics are read only");
+  }
+  
+  public AttributeList setAttributes(AttributeList attributes) {
+    return new AttributeList();
+  }
+  
+  public Object invoke(String actionName, Object[] params, String[] signature)
+      throws ReflectionException {
+    if (actionName.equals("snapshot")) {
+      return metrics.snapshot().toString();
+    }
+    throw new ReflectionException(new NoSuchMethodException(actionName));
+  }
+  
+  public MBeanInfo getMBeanInfo() {
+    MBeanAttributeInfo[] attributes =
+        new MBeanAttributeInfo[GameMetrics.NAMES.length * STATS.length];
+    for (int p = 0; p < GameMetrics.NAMES.length; p++) {
+      for (int s = 0; s < STATS.length; s++) {
+        attributes[p * STATS.length + s] = new MBeanAttributeInfo(GameMetrics.NAMES[p] + STATS[s],
+            STATS[s].equals("MeanNanos") ? "double" : "long",
+            STATS[s] + " of " + GameMetrics.NAMES[p], true, false, false);
+      }
+    }
+    MBeanOperationInfo snapshot = new MBeanOperationInfo("snapshot",
+        "Every metric of every hot path", null, "java.lang.String", MBeanOperationInfo.INFO);
+    return new MBeanInfo(MetricsMBean.class.getName(), "LightEmAll game metrics", attributes,
+        null, new MBeanOperationInfo[] {snapshot}, null);
+  }
+  
+}
@@ -0,0 +1,37 @@
+// the metrics of every hot path at some point in time
+class MetricsSnapshot {
+  // the metrics of each path, in the order of GameMetrics.NAMES
+  PathMetrics[] paths;
+  
+  MetricsSnapshot(PathMetrics[] paths) {
+    this.paths = paths;
+  }
+  
+  // the metrics of the given path, one of the GameMetrics constants
+  public PathMetrics path(int path) {
+    return paths[path];
+  }
+  
+  // how many frames have been drawn
+  public long frames() {
+    return paths[GameMetrics.SCENE].count;
+  }
+  
+  // the runs since the given earlier snapshot was taken, for example over the last frame
+  public MetricsSnapshot minus(MetricsSnapshot earlier) {
+    PathMetrics[] result = new PathMetrics[paths.length];
+    for (int p = 0; p < paths.length; p++) {
+      result[p] = paths[p].minus(earlier.paths[p]);
+    }
+    return new MetricsSnapshot(result);
+  }
+  
+  public String toString() {
+    StringBuilder result = new StringBuilder();
+    for (PathMetrics p : paths) {
+      result.append(p).append("\n");
+    }
+    return result.toString();
+  }
+  
+}
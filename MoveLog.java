@@ -0,0 +1,173 @@
+import java.util.Arrays;
+
+// the moves of a game as a compact list of bytes, which replayed onto a new game
+// made the same way, from the same seed, play the same game again
+// each move is two unsigned varints: how many ticks passed since the last move
+// (or since the last restart, which sets the ticks back to 0), then the kind of move
+// in the low three bits and what it applies to above them: for a rotation the
+// zigzag encoded distance from the tile of the last rotation, so a click near the
+// last one takes one byte, and for a station move the wire it tried to move along
+// a batch of rotations is one move, of how many rotations there are, followed by
+// a varint for each rotation with the zigzag encoded distance from the last tile
+// above its number of steps in the low three bits
+// a restart is one move, of which bias the new board has (0 for -1/3, 1 for none and
+// 2 for 1/3), followed by a varint of the seed it was generated from, so replaying
+// makes the same board whether it came from a BoardPool or not
+class MoveLog {
+  // the kinds of move
+  static final int ROTATE = 0;
+  static final int MOVE = 1;
+  static final int MISS = 2;
+  static final int RESTART = 3;
+  static final int BATCH = 4;
+  
+  byte[] bytes;
+  int size;
+  // how many moves there are
+  int moves;
+  // the tile of the last rotation and the ticks of the last move
+  int lastTile;
+  int lastTicks;
+  // where the next varint is read from while replaying
+  int at;
+  
+  // an empty log
+  MoveLog() {
+    this(new byte[64], 0, 0);
+  }
+  
+  // the log in the first size of the given bytes, holding the given number of moves
+  MoveLog(byte[] bytes, int size, int moves) {
+    this.bytes = bytes;
+    this.size = size;
+    this.moves = moves;
+    this.lastTile = 0;
+    this.lastTicks = 0;
+    this.at = 0;
+  }
+  
+  // records a move of the given kind, applying to the given tile or wire,
+  // made when the game's ticks were at the given count
+  public void add(int kind, int operand, int ticks) {
+    this.write(ticks - lastTicks);
+    this.lastTicks = kind == RESTART ? 0 : ticks;
+    long value = operand;
+    if (kind == ROTATE) {
+      value = MoveLog.zigzag(operand - lastTile);
+      this.lastTile = operand;
+    }
+    this.write(value << 3 | kind);
+    this.moves++;
+  }
+  
+  // records a batch of rotations of the first count of the given tiles the given number
+  // of steps, each of which is a full turn of the given number of steps at most,
+  // made when the game's ticks were at the given count
+  public void addBatch(int[] tiles, int[] turns, int count, int directions, int ticks) {
+    this.add(BATCH, count, ticks);
+    for (int i = 0; i < count; i++) {
+      long distance = MoveLog.zigzag(tiles[i] - lastTile);
+      this.lastTile = tiles[i];
+      this.write(distance << 3 | Math.floorMod(turns[i], directions));
+    }
+  }
+  
+  // records a restart onto the board generated from the given seed with the given bias,
+  // made when the game's ticks were at the given count
+  public void addRestart(long seed, double bias, int ticks) {
+    this.add(RESTART, (int) Math.round(bias * 3) + 1, ticks);
+    this.write(seed);
+  }
+  
+  // the given distance between tiles zigzag encoded, so that small distances either way
+  // are small numbers; tiles are ints, so it takes up to 33 bits
+  static long zigzag(int distance) {
+    return ((long) distance << 1) ^ (distance >> 31);
+  }
+  
+  // the distance between tiles zigzag encoded as the given number
+  static int unzigzag(long value) {
+    return (int) ((value >>> 1) ^ -(value & 1));
+  }
+  
+  // writes the given number as an unsigned varint: seven bits a byte, lowest first,
+  // with the high bit set on every byte but the last
+  // numbers are written as longs, so a tile distance above its three bits of kind fits
+  void write(long value) {
+    if (size + 10 > bytes.length) {
+      this.bytes = Arrays.copyOf(bytes, bytes.length * 2);
+    }
+    while ((value & ~0x7FL) != 0) {
+      bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    bytes[size++] = (byte) value;
+  }
+  
+  // reads the unsigned varint at at, moving at past it
+  long read() {
+    long value = 0;
+    int shift = 0;
+    int b;
+    do {
+      b = bytes[at++];
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while (b < 0);
+    return value;
+  }
+  
+  // the recorded bytes
+  public byte[] toBytes() {
+    return Arrays.copyOf(bytes, size);
+  }
+  
+  // plays every move in the log onto the given game, which should be new and made
+  // the same way as the recorded one, and returns it
+  // the game's metrics are off while replaying, so replayed moves don't read the clock
+  // and aren't counted as played, and are turned back to how they were afterwards
+  public GameEngine replay(GameEngine game) {
+    boolean measured = game.metrics.enabled;
+    game.metrics.enabled = false;
+    this.at = 0;
+    int tile = 0;
+    int ticks = 0;
+    while (at < size) {
+      // reads how many ticks passed, then the move
+      ticks += (int) this.read();
+      long value = this.read();
+      game.ticks = ticks;
+      long operand = value >>> 3;
+      int kind = (int) (value & 7);
+      if (kind == ROTATE) {
+        tile += MoveLog.unzigzag(operand);
+        game.rotate(tile / game.width, tile % game.width);
+      }
+      else if (kind == MOVE) {
+        game.moveStation((int) operand);
+      }
+      else if (kind == MISS) {
+        game.miss();
+      }
+      else if (kind == BATCH) {
+        int count = (int) operand;
+        int[] tiles = new int[count];
+        int[] turns = new int[count];
+        for (int i = 0; i < count; i++) {
+          value = this.read();
+          tile += MoveLog.unzigzag(value >>> 3);
+          tiles[i] = tile;
+          turns[i] = (int) (value & 7);
+        }
+        game.rotateAll(tiles, turns, count);
+      }
+      else {
+        game.restart(this.read(), (operand - 1) / 3.0);
+        ticks = 0;
+      }
+    }
+    game.metrics.enabled = measured;
+    return game;
+  }
+  
+}
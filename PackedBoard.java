@@ -0,0 +1,223 @@
+// represents the board as one byte per tile, in row-major order,
+// i.e., the tile at (row, col) is at index row * width + col
+// the low six bits of a byte are the tile's wires, one for each way its topology
+// lets it connect, of which a square grid only uses four; the top two are flags
+class PackedBoard {
+  
+  // the wire bits of a square grid, in counterclockwise order
+  // so that rotating a tile is a one bit shift
+  static final int TOP = 1;
+  static final int LEFT = 2;
+  static final int BOTTOM = 4;
+  static final int RIGHT = 8;
+  static final int WIRES = TOP | LEFT | BOTTOM | RIGHT;
+  // the wire bits of any topology
+  static final int ALL_WIRES = 63;
+  
+  // the flag bits
+  static final int STATION = 64;
+  static final int POWERED = 128;
+  
+  // the square grid, which boards are laid out as unless they say otherwise
+  static final ITopology GRID = new SquareGrid();
+  
+  // the most memory the neighbor table of a board may take, a quarter of the heap,
+  // which is 16 bytes a tile on a square grid, so a 2GB heap fits the table
+  // of a 5000 by 5000 board
+  static final long TABLE_BUDGET = Runtime.getRuntime().maxMemory() / 4;
+  
+  // every set of wires of a tile with four or six wires turned every number of steps
+  // counterclockwise, at turns << directions | wires, so any turn is one lookup
+  static final byte[] TURNS_4 = PackedBoard.turnTable(4);
+  static final byte[] TURNS_6 = PackedBoard.turnTable(6);
+  
+  // the width and height of the board
+  int width;
+  int height;
+  
+  // how the tiles are laid out, how many wires each can have, and the bits of those wires
+  ITopology topology;
+  int directions;
+  int wireMask;
+  
+  // the tile next to each tile along each of its wires, see neighbors,
+  // or null until it is first needed
+  int[] next;
+  
+  // the turn table for tiles with this board's number of wires
+  byte[] turned;
+  
+  // one byte per tile
+  byte[] cells;
+  
+  // creates an empty board laid out as a square grid
+  PackedBoard(int width, int height) {
+    this(width, height, GRID);
+  }
+  
+  // creates an empty board laid out as the given topology
+  // throws an IllegalArgumentException if a board of this size can't be laid out that way
+  PackedBoard(int width, int height, ITopology topology) {
+    if (!topology.fits(width, height)) {
+      throw new IllegalArgumentException("A " + width + " by " + height 
+          + " board can't be laid out as a " + topology.name());
+    }
+    this.width = width;
+    this.height = height;
+    this.topology = topology;
+    this.directions = topology.directions();
+    this.wireMask = (1 << directions) - 1;
+    this.next = null;
+    this.turned = directions == 4 ? TURNS_4 : PackedBoard.turnTable(directions);
+    this.cells = new byte[width * height];
+  }
+  
+  // the index of the tile at the given row and column
+  public int index(int row, int col) {
+    return row * width + col;
+  }
+  
+  // the wires of the tile at the given index
+  public int wires(int tile) {
+    return cells[tile] & wireMask;
+  }
+  
+  // checks if the tile at the given index has all of the given bits
+  public boolean has(int tile, int bits) {
+    return (cells[tile] & bits) == bits;
+  }
+  
+  // turns the given bits on for the tile at the given index
+  public void set(int tile, int bits) {
+    cells[tile] = (byte) (cells[tile] | bits);
+  }
+  
+  // turns the given bits off for the tile at the given index
+  public void clear(int tile, int bits) {
+    cells[tile] = (byte) (cells[tile] & ~bits);
+  }
+  
+  // the wire pointing the opposite way of the given wire, half way around
+  public int opposite(int dir) {
+    int half = directions / 2;
+    return ((dir << half) | (dir >> half)) & wireMask;
+  }
+  
+  // the tile next to every tile along each of its wires, worked out the first time
+  // it is asked for, so lookups in the hot loops are a single array read:
+  // each tile has a row of directions entries, and its neighbor along wire k
+  // is at tile * directions + k, or -1 if there is none
+  // boards whose table doesn't fit, see tableFits, have no table, and this returns null
+  public int[] neighbors() {
+    if (next == null && PackedBoard.tableFits(cells.length, directions)) {
+      int[] table = new int[cells.length * directions];
+      for (int row = 0; row < height; row++) {
+        for (int col = 0; col < width; col++) {
+          for (int k = 0; k < directions; k++) {
+            table[(row * width + col) * directions + k] = 
+                topology.step(width, height, row, col, k);
+          }
+        }
+      }
+      this.next = table;
+    }
+    return next;
+  }
+  
+  // checks if the neighbor table of a board with the given number of tiles and wires
+  // fits in TABLE_BUDGET and in one array
+  static boolean tableFits(long tiles, int directions) {
+    long entries = tiles * directions;
+    return entries <= Integer.MAX_VALUE - 8 && entries * 4 <= TABLE_BUDGET;
+  }
+  
+  // the index of the tile next to the given one in the direction of the given wire,
+  // or -1 if that would be off the board
+  public int neighbor(int tile, int dir) {
+    int k = Integer.numberOfTrailingZeros(dir);
+    if (next != null) {
+      return next[tile * directions + k];
+    }
+    int row = tile / width;
+    return topology.step(width, height, row, tile - row * width, k);
+  }
+  
+  // checks if the given tile and its neighbor in the given direction
+  // have wires pointing at each other
+  public boolean connected(int tile, int dir) {
+    int other = this.neighbor(tile, dir);
+    return other != -1 && this.has(tile, dir) && this.has(other, this.opposite(dir));
+  }
+  
+  // adds wires between two adjacent tiles
+  // throws an IllegalArgumentException if they are not adjacent
+  public void connect(int tile, int other) {
+    for (int dir = 1; dir <= wireMask; dir <<= 1) {
+      if (this.neighbor(tile, dir) == other) {
+        this.set(tile, dir);
+        this.set(other, this.opposite(dir));
+        return;
+      }
+    }
+    throw new IllegalArgumentException("Tiles " + tile + " and " + other + " are not adjacent");
+  }
+  
+  // the turn table for tiles with the given number of wires, see TURNS_4
+  static byte[] turnTable(int directions) {
+    if (directions == 6 && TURNS_6 != null) {
+      return TURNS_6;
+    }
+    int mask = (1 << directions) - 1;
+    byte[] table = new byte[directions << directions];
+    for (int wires = 0; wires <= mask; wires++) {
+      int turned = wires;
+      for (int turns = 0; turns < directions; turns++) {
+        table[turns << directions | wires] = (byte) turned;
+        turned = ((turned << 1) | (turned >> (directions - 1))) & mask;
+      }
+    }
+    return table;
+  }
+  
+  // the given wires turned one step counterclockwise,
+  // i.e., on a square grid top -> left -> bottom -> right -> top
+  public int turn(int wires) {
+    return turned[1 << directions | wires];
+  }
+  
+  // the given wires turned the given number of steps counterclockwise,
+  // which is at least 0 and less than a full turn
+  public int turn(int wires, int turns) {
+    return turned[turns << directions | wires];
+  }
+  
+  // rotates the tile at the given index one step counterclockwise
+  public void rotate(int tile) {
+    this.rotate(tile, 1);
+  }
+  
+  // rotates the tile at the given index the given number of steps counterclockwise,
+  // which is at least 0 and less than a full turn
+  public void rotate(int tile, int turns) {
+    int cell = cells[tile];
+    cells[tile] = (byte) ((cell & ~wireMask) | turned[turns << directions | (cell & wireMask)]);
+  }
+  
+  // turns power off for every tile
+  public void clearPower() {
+    for (int tile = 0; tile < cells.length; tile++) {
+      this.clear(tile, POWERED);
+    }
+  }
+  
+  // checks if every tile is powered
+  public boolean allPowered() {
+    for (int tile = 0; tile < cells.length; tile++) {
+      if (!this.has(tile, POWERED)) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
+}
@@ -0,0 +1,148 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// lays out a board like BoruvkaGenerator, but with each round split into stripes of rows
+// that run in parallel on a fork-join pool, joining groups with compare-and-set
+// instead of locks; ties are broken the same way as KruskalGenerator,
+// so given the same weights both find exactly the same tree
+class ParallelBoruvkaGenerator implements IMazeGenerator {
+  ForkJoinPool pool;
+  
+  ParallelBoruvkaGenerator() {
+    this(ForkJoinPool.commonPool());
+  }
+  
+  ParallelBoruvkaGenerator(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+  
+  // weighs every edge of the grid in parallel, then runs boruvka's algorithm over them
+  public GridEdges generate(int width, int height, double bias, SplittableRandom rand) {
+    BoruvkaState state = new BoruvkaState(width, height);
+    pool.invoke(new BoruvkaStripe(state, BoruvkaStripe.WEIGH, 0, height, bias, rand));
+    return this.spanningTree(state);
+  }
+  
+  // weighs every pair of neighboring tiles of the board in parallel,
+  // then runs boruvka's algorithm over them
+  public GridEdges generate(PackedBoard b, double bias, SplittableRandom rand) {
+    BoruvkaState state = new BoruvkaState(b);
+    pool.invoke(new BoruvkaStripe(state, BoruvkaStripe.WEIGH, 0, b.height, bias, rand));
+    return this.spanningTree(state);
+  }
+  
+  // runs boruvka's algorithm over the already weighed edges of the given state
+  public GridEdges spanningTree(BoruvkaState state) {
+    int n = state.width * state.height;
+    while (state.added.get() < n - 1) {
+      pool.invoke(new BoruvkaStripe(state, BoruvkaStripe.FIND, 0, state.height, 0, null));
+      pool.invoke(new BoruvkaStripe(state, BoruvkaStripe.JOIN, 0, state.height, 0, null));
+    }
+    GridEdges tree = new GridEdges(Math.max(n - 1, 0));
+    for (int e = 0; e < state.picked.length; e++) {
+      if (state.picked[e]) {
+        tree.add(e / state.perTile, state.other(e), state.weight[e]);
+      }
+    }
+    return tree;
+  }
+  
+}
+
+// runs one step of ParallelBoruvkaGenerator over a stripe of rows,
+// splitting itself in half while the stripe is big enough
+@SuppressWarnings("serial")
+class BoruvkaStripe extends RecursiveAction {
+  // the fewest tiles worth splitting a stripe over
+  static final int STRIPE_TILES = 1 << 14;
+  
+  // the steps: weighing the edges, finding each group's lightest edge,
+  // and joining groups along those edges
+  static final int WEIGH = 0;
+  static final int FIND = 1;
+  static final int JOIN = 2;
+  
+  BoruvkaState state;
+  int step;
+  int fromRow;
+  int toRow;
+  // the bias and random number generator for weighing edges
+  double bias;
+  SplittableRandom rand;
+  
+  BoruvkaStripe(BoruvkaState state, int step, int fromRow, int toRow, double bias, 
+      SplittableRandom rand) {
+    this.state = state;
+    this.step = step;
+    this.fromRow = fromRow;
+    this.toRow = toRow;
+    this.bias = bias;
+    this.rand = rand;
+  }
+  
+  // runs the step over the rows from fromRow up to toRow
+  protected void compute() {
+    if (toRow - fromRow > 1 && (toRow - fromRow) * state.width > 2 * STRIPE_TILES) {
+      int middle = (fromRow + toRow) / 2;
+      // splits the random number generator before forking,
+      // so the weights only depend on the board size and not on the threads
+      SplittableRandom other = rand == null ? null : rand.split();
+      invokeAll(new BoruvkaStripe(state, step, fromRow, middle, bias, rand), 
+          new BoruvkaStripe(state, step, middle, toRow, bias, other));
+    }
+    else if (step == WEIGH) {
+      this.weighEdges();
+    }
+    else if (step == FIND) {
+      this.findLightest();
+    }
+    else {
+      this.joinGroups();
+    }
+  }
+  
+  // gives every edge of the stripe a random weight
+  void weighEdges() {
+    int horizontalLeast = GridEdges.leastWeight(bias, true);
+    int verticalLeast = GridEdges.leastWeight(bias, false);
+    for (int e = state.perTile * fromRow * state.width; 
+        e < state.perTile * toRow * state.width; e++) {
+      int least = state.horizontal(e) ? horizontalLeast : verticalLeast;
+      state.weight[e] = (byte) (least + rand.nextInt(GridEdges.MAX_WEIGHT - least));
+    }
+  }
+  
+  // offers every edge of the stripe joining two groups to both of those groups
+  void findLightest() {
+    for (int e = state.perTile * fromRow * state.width; 
+        e < state.perTile * toRow * state.width; e++) {
+      if (state.exists(e)) {
+        int a = state.find(e / state.perTile);
+        int b = state.find(state.other(e));
+        if (a != b) {
+          state.offer(a, e);
+          state.offer(b, e);
+        }
+      }
+    }
+  }
+  
+  // adds the lightest edge out of every group represented in this stripe to the tree,
+  // unless the group on its other end already added it
+  void joinGroups() {
+    int added = 0;
+    for (int group = fromRow * state.width; group < toRow * state.width; group++) {
+      int e = state.lightest.get(group);
+      if (e != -1) {
+        state.lightest.set(group, -1);
+        if (state.union(e / state.perTile, state.other(e))) {
+          state.picked[e] = true;
+          added++;
+        }
+      }
+    }
+    state.added.addAndGet(added);
+  }
+  
+}
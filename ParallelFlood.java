@@ -0,0 +1,155 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// spreads power from the power station breadth first, one level at a time, with the tiles
+// of each level split between the threads of a pool, which claim the tiles they power
+// with atomic updates of a bitset so no tile is powered twice
+// like PowerFlood.spread it leaves the powered tiles in the queue, in level order,
+// and the wire leading back towards the station in parent
+class ParallelFlood {
+  // how many tiles of a level one task expands
+  static final int CHUNK = 1024;
+  
+  PackedBoard board;
+  byte[] cells;
+  int[] queue;
+  byte[] parent;
+  // one bit for each tile, set once the tile is powered
+  AtomicLongArray claimed;
+  // the tiles each chunk of the current level powered, and how many there are
+  int[][] found;
+  int[] foundCount;
+  
+  // gets ready to flood the given board, which has no power,
+  // using the given queue and parent arrays, which are at least as long as the board
+  ParallelFlood(PackedBoard b, int[] queue, byte[] parent) {
+    this.board = b;
+    this.cells = b.cells;
+    this.queue = queue;
+    this.parent = parent;
+    this.claimed = new AtomicLongArray((cells.length + 63) / 64);
+    this.found = new int[0][];
+    this.foundCount = new int[0];
+  }
+  
+  // powers every tile connected to the given station, returning how many that is
+  public int run(ForkJoinPool pool, int station) {
+    this.claim(station);
+    cells[station] = (byte) (cells[station] | PackedBoard.POWERED);
+    parent[station] = 0;
+    queue[0] = station;
+    int head = 0;
+    int tail = 1;
+    while (head < tail) {
+      int chunks = (tail - head + CHUNK - 1) / CHUNK;
+      if (found.length < chunks) {
+        this.found = Arrays.copyOf(found, chunks);
+        this.foundCount = new int[chunks];
+      }
+      if (chunks == 1) {
+        this.expand(head, tail, 0);
+      }
+      else {
+        pool.invoke(new FloodLevel(this, head, tail, 0, chunks));
+      }
+      // the next level goes right after this one
+      head = tail;
+      for (int c = 0; c < chunks; c++) {
+        System.arraycopy(found[c], 0, queue, tail, foundCount[c]);
+        tail += foundCount[c];
+      }
+    }
+    return tail;
+  }
+  
+  // powers the unpowered tiles connected to the tiles in queue from start to end,
+  // which are the given chunk of the current level, keeping them in found
+  void expand(int start, int end, int chunk) {
+    int directions = board.directions;
+    int[] next = board.next;
+    if (found[chunk] == null) {
+      // every tile but the station was reached through one of its wires
+      found[chunk] = new int[(directions - 1) * CHUNK + 1];
+    }
+    int[] out = found[chunk];
+    int size = 0;
+    for (int i = start; i < end; i++) {
+      int tile = queue[i];
+      int wires = cells[tile] & board.wireMask;
+      while (wires != 0) {
+        int wire = wires & -wires;
+        wires ^= wire;
+        int other = next != null ? next[tile * directions + Integer.numberOfTrailingZeros(wire)]
+            : board.neighbor(tile, wire);
+        if (other != -1 && this.visit(other, board.opposite(wire))) {
+          out[size++] = other;
+        }
+      }
+    }
+    foundCount[chunk] = size;
+  }
+  
+  // powers the given tile if it has a wire coming back and no other thread has powered it,
+  // returning whether it did
+  boolean visit(int tile, int wire) {
+    // the powered bit of a cell is only ever set after the tile is claimed,
+    // so it is a cheap first check
+    if ((cells[tile] & (wire | PackedBoard.POWERED)) != wire || !this.claim(tile)) {
+      return false;
+    }
+    cells[tile] = (byte) (cells[tile] | PackedBoard.POWERED);
+    parent[tile] = (byte) wire;
+    return true;
+  }
+  
+  // claims the given tile, returning whether it was not claimed before
+  boolean claim(int tile) {
+    int word = tile >>> 6;
+    long bit = 1L << tile;
+    long old = claimed.get(word);
+    while ((old & bit) == 0) {
+      if (claimed.compareAndSet(word, old, old | bit)) {
+        return true;
+      }
+      old = claimed.get(word);
+    }
+    return false;
+  }
+  
+}
+
+// expands a range of chunks of one level of a parallel flood,
+// splitting it in half until there is one chunk left
+@SuppressWarnings("serial")
+class FloodLevel extends RecursiveAction {
+  ParallelFlood flood;
+  // the tiles of the level are in the flood's queue from start to end
+  int start;
+  int end;
+  // the chunks to expand, from first up to but not including last
+  int first;
+  int last;
+  
+  FloodLevel(ParallelFlood flood, int start, int end, int first, int last) {
+    this.flood = flood;
+    this.start = start;
+    this.end = end;
+    this.first = first;
+    this.last = last;
+  }
+  
+  protected void compute() {
+    if (last - first == 1) {
+      int from = start + first * ParallelFlood.CHUNK;
+      flood.expand(from, Math.min(end, from + ParallelFlood.CHUNK), first);
+    }
+    else {
+      int middle = (first + last) >>> 1;
+      invokeAll(new FloodLevel(flood, start, end, first, middle),
+          new FloodLevel(flood, start, end, middle, last));
+    }
+  }
+  
+}
@@ -0,0 +1,58 @@
+// the metrics of one hot path at some point in time
+class PathMetrics {
+  String name;
+  // how many runs took each range of times, as in GameMetrics
+  long[] buckets;
+  // how many runs there were
+  long count;
+  // the total and the longest time they took, in nanoseconds
+  long totalNanos;
+  long maxNanos;
+  
+  PathMetrics(String name, long[] buckets, long totalNanos, long maxNanos) {
+    this.name = name;
+    this.buckets = buckets;
+    this.totalNanos = totalNanos;
+    this.maxNanos = maxNanos;
+    this.count = 0;
+    for (long c : buckets) {
+      this.count += c;
+    }
+  }
+  
+  // the average time a run took in nanoseconds, or 0 if there were none
+  public double meanNanos() {
+    return count == 0 ? 0 : totalNanos / (double) count;
+  }
+  
+  // a time in nanoseconds that at least the given fraction of runs took no longer than,
+  // which is at most twice the true quantile, since times are bucketed by powers of two,
+  // and never more than the longest time; 0 if there were no runs
+  public long quantileNanos(double fraction) {
+    long seen = 0;
+    for (int i = 0; i < buckets.length; i++) {
+      seen += buckets[i];
+      if (seen > 0 && seen >= fraction * count) {
+        return Math.min(i == 0 ? 0 : (1L << i) - 1, maxNanos);
+      }
+    }
+    return 0;
+  }
+  
+  // the runs since the given earlier metrics of the same path were taken
+  // the longest time is only known over all runs, so it stays the same
+  public PathMetrics minus(PathMetrics earlier) {
+    long[] counts = new long[buckets.length];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = buckets[i] - earlier.buckets[i];
+    }
+    return new PathMetrics(name, counts, totalNanos - earlier.totalNanos, maxNanos);
+  }
+  
+  public String toString() {
+    return name + ": " + count + " runs, mean " + Math.round(this.meanNanos()) + " ns, p50 "
+        + this.quantileNanos(0.5) + " ns, p99 " + this.quantileNanos(0.99) + " ns, max "
+        + maxNanos + " ns";
+  }
+  
+}
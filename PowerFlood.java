@@ -0,0 +1,407 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+// spreads power breadth first from the power station using a queue of tile indices
+// instead of recursion, so it works no matter how long the wires are
+// every powered tile remembers which of its wires leads back towards the station,
+// so after a single rotation or station move only the tiles whose path to the
+// station went through the changed tile have to be looked at again
+class PowerFlood {
+  // tiles waiting to be visited, reused between floods
+  int[] queue;
+  // for each powered tile, the wire leading to the tile it was powered from,
+  // or 0 for the station
+  byte[] parent;
+  // the tiles cut off from the station by the last rotation
+  int[] cut;
+  // the one tile of a single rotation, as a batch of one
+  int[] rotatedTile;
+  // how many tiles are powered
+  int count;
+  // the board and station the powered tiles were worked out for
+  PackedBoard last;
+  int station;
+  // the tiles whose power the last update changed,
+  // unless it changed all of them because it was a full flood
+  int[] changed;
+  int changedCount;
+  boolean changedAll;
+  // the pool full floods of big enough boards run on, level by level,
+  // or null to always flood on the calling thread
+  ForkJoinPool pool;
+  // how many tiles a board needs for its full floods to run on the pool
+  int threshold;
+  // how many wires away from the station power reaches, or UNLIMITED
+  int radius;
+  // for each powered tile, how many wires it is from the station,
+  // only kept while power is limited
+  int[] dist;
+  // tiles waiting to have their distances settled after a rotation, see settle
+  LongHeap pending;
+  
+  // boards with fewer tiles than this flood faster on one thread
+  static final int PARALLEL_THRESHOLD = 1 << 20;
+  // the radius of power that reaches every tile connected to the station
+  static final int UNLIMITED = Integer.MAX_VALUE;
+  
+  PowerFlood() {
+    this.queue = new int[0];
+    this.parent = new byte[0];
+    this.cut = new int[16];
+    this.rotatedTile = new int[1];
+    this.changed = new int[16];
+    this.changedCount = 0;
+    this.changedAll = false;
+    this.count = 0;
+    this.last = null;
+    this.station = -1;
+    this.pool = null;
+    this.threshold = PARALLEL_THRESHOLD;
+    this.radius = UNLIMITED;
+    this.dist = new int[0];
+    this.pending = new LongHeap();
+  }
+  
+  // only powers tiles at most the given number of wires from the station from now on,
+  // or every tile connected to it if it is UNLIMITED
+  // the next update is a full flood
+  public void limit(int radius) {
+    this.radius = radius;
+    this.last = null;
+  }
+  
+  // forgets the last update, so no tile counts as powered and the next is a full flood
+  public void forget() {
+    this.last = null;
+    this.count = 0;
+  }
+  
+  // runs full floods of boards with at least the given number of tiles on the given pool,
+  // or always on the calling thread if it is null
+  // updates after a rotation or a station move along a wire stay on the calling thread,
+  // since they only look at the tiles that changed
+  public void parallel(ForkJoinPool pool, int threshold) {
+    this.pool = pool;
+    this.threshold = threshold;
+  }
+  
+  // turns off all power and powers every tile connected to the given station,
+  // returning how many tiles are powered
+  public int flood(PackedBoard b, int station) {
+    b.clearPower();
+    // builds the neighbor table now, before any thread of a parallel flood reads it
+    b.neighbors();
+    this.last = b;
+    this.station = station;
+    this.changedAll = true;
+    this.changedCount = 0;
+    if (queue.length < b.cells.length) {
+      this.queue = new int[b.cells.length];
+      this.parent = new byte[b.cells.length];
+    }
+    if (radius != UNLIMITED) {
+      if (dist.length < b.cells.length) {
+        this.dist = new int[b.cells.length];
+      }
+      this.count = this.spreadWithin(b, station);
+    }
+    else if (pool != null && b.cells.length >= threshold) {
+      this.count = new ParallelFlood(b, queue, parent).run(pool, station);
+    }
+    else {
+      this.count = this.spread(b, station, 0);
+    }
+    return count;
+  }
+  
+  // whether the last update powered every tile of the given board,
+  // without looking at the tiles
+  public boolean allPowered(PackedBoard b) {
+    return b == last && count == b.cells.length;
+  }
+  
+  // updates power after the given tile was rotated, returning how many tiles are powered
+  public int rotated(PackedBoard b, int station, int tile) {
+    rotatedTile[0] = tile;
+    return this.rotatedAll(b, station, rotatedTile, 1);
+  }
+  
+  // updates power once after the first rotations of the given tiles were all rotated,
+  // returning how many tiles are powered
+  // everything powered through a rotated tile loses power, and gets it back
+  // if it is still connected to a powered tile, as do rotated tiles that had none
+  public int rotatedAll(PackedBoard b, int station, int[] tiles, int rotations) {
+    if (b != last || station != this.station) {
+      return this.flood(b, station);
+    }
+    for (int i = 0; i < rotations; i++) {
+      if (tiles[i] == station) {
+        return this.flood(b, station);
+      }
+    }
+    this.changedAll = false;
+    this.changedCount = 0;
+    int size = this.cutOff(b, tiles, rotations);
+    if (radius != UNLIMITED) {
+      return this.rotatedWithin(b, tiles, rotations, size);
+    }
+    for (int i = 0; i < size; i++) {
+      this.reconnect(b, cut[i]);
+    }
+    for (int i = 0; i < rotations; i++) {
+      this.reconnect(b, tiles[i]);
+    }
+    return count;
+  }
+  
+  // turns power off for every tile powered through any of the first rotations of the
+  // given tiles, including those tiles, and puts them in cut, returning how many it did
+  int cutOff(PackedBoard b, int[] tiles, int rotations) {
+    int size = 0;
+    for (int i = 0; i < rotations; i++) {
+      if (b.has(tiles[i], PackedBoard.POWERED)) {
+        int from = size;
+        size = this.collect(b, tiles[i], size);
+        for (int j = from; j < size; j++) {
+          b.clear(cut[j], PackedBoard.POWERED);
+        }
+      }
+    }
+    this.log(cut, size);
+    this.count -= size;
+    return size;
+  }
+  
+  // updates power after the station moved to the given tile along a wire,
+  // returning how many tiles are powered
+  public int moved(PackedBoard b, int to) {
+    if (b != last || !b.has(to, PackedBoard.POWERED)) {
+      return this.flood(b, to);
+    }
+    this.changedAll = false;
+    this.changedCount = 0;
+    if (radius != UNLIMITED) {
+      return this.movedWithin(b, to);
+    }
+    // the same tiles stay powered, but the path from the new station
+    // to the old one has to be flipped around
+    int back = 0;
+    int tile = to;
+    while (tile != station) {
+      int dir = parent[tile];
+      parent[tile] = (byte) back;
+      back = b.opposite(dir);
+      tile = b.neighbor(tile, dir);
+    }
+    parent[station] = (byte) back;
+    this.station = to;
+    return count;
+  }
+  
+  // like spread from the station, but only powers tiles within the radius,
+  // keeping how far each is from the station
+  int spreadWithin(PackedBoard b, int station) {
+    b.set(station, PackedBoard.POWERED);
+    parent[station] = 0;
+    dist[station] = 0;
+    queue[0] = station;
+    int tail = 1;
+    for (int head = 0; head < tail; head++) {
+      int tile = queue[head];
+      if (dist[tile] == radius) {
+        // the rest of the queue is this far away too
+        break;
+      }
+      for (int dir = 1; dir <= b.wireMask; dir <<= 1) {
+        int other = b.neighbor(tile, dir);
+        if (b.connected(tile, dir) && !b.has(other, PackedBoard.POWERED)) {
+          b.set(other, PackedBoard.POWERED);
+          parent[other] = (byte) b.opposite(dir);
+          dist[other] = dist[tile] + 1;
+          queue[tail++] = other;
+        }
+      }
+    }
+    return tail;
+  }
+  
+  // updates power within the radius after the station moved to the given tile,
+  // returning how many tiles are powered
+  // every distance may change, so every powered tile loses power and power spreads again
+  // from the new station; the powered tiles are found through their parents, so only
+  // tiles within the radius of the old station or the new one are looked at
+  int movedWithin(PackedBoard b, int to) {
+    int size = this.collect(b, station, 0);
+    for (int i = 0; i < size; i++) {
+      b.clear(cut[i], PackedBoard.POWERED);
+    }
+    this.log(cut, size);
+    this.station = to;
+    this.count = this.spreadWithin(b, to);
+    this.log(queue, count);
+    return count;
+  }
+  
+  // updates power within the radius after the first rotations of the given tiles were
+  // rotated and the first size tiles of cut lost power, returning how many are powered
+  // rotations only took away wires of the rotated tiles, so the only tiles that can be
+  // further from the station than before are those that lost power; they get back the
+  // shortest distance through their powered neighbors, while any tile the rotated tiles'
+  // new wires bring closer is updated too
+  int rotatedWithin(PackedBoard b, int[] tiles, int rotations, int size) {
+    pending.size = 0;
+    for (int i = 0; i < size; i++) {
+      this.seed(b, cut[i]);
+    }
+    for (int i = 0; i < rotations; i++) {
+      this.seed(b, tiles[i]);
+    }
+    int powered = this.settle(b);
+    this.log(queue, powered);
+    this.count += powered;
+    return count;
+  }
+  
+  // puts the given tile in pending, if it is unpowered, with the distance through each
+  // powered tile it is connected to that is closer to the station than the radius
+  void seed(PackedBoard b, int tile) {
+    if (b.has(tile, PackedBoard.POWERED)) {
+      return;
+    }
+    for (int dir = 1; dir <= b.wireMask; dir <<= 1) {
+      int other = b.neighbor(tile, dir);
+      if (b.connected(tile, dir) && b.has(other, PackedBoard.POWERED) && dist[other] < radius) {
+        pending.push(PowerFlood.pend(dist[other] + 1, dir, tile));
+      }
+    }
+  }
+  
+  // settles the distances of the tiles waiting in pending, nearest first, powering those
+  // that were unpowered and passing shorter distances on to their neighbors,
+  // returning how many tiles it powered, which it leaves at the start of the queue
+  int settle(PackedBoard b) {
+    int powered = 0;
+    while (pending.size > 0) {
+      long item = pending.pop();
+      int d = (int) (item >>> 38);
+      int tile = (int) item;
+      if (b.has(tile, PackedBoard.POWERED)) {
+        if (d >= dist[tile]) {
+          continue;
+        }
+      }
+      else {
+        b.set(tile, PackedBoard.POWERED);
+        queue[powered++] = tile;
+      }
+      dist[tile] = d;
+      parent[tile] = (byte) ((item >>> 32) & PackedBoard.ALL_WIRES);
+      if (d == radius) {
+        continue;
+      }
+      for (int dir = 1; dir <= b.wireMask; dir <<= 1) {
+        int other = b.neighbor(tile, dir);
+        if (b.connected(tile, dir)
+            && (!b.has(other, PackedBoard.POWERED) || dist[other] > d + 1)) {
+          pending.push(PowerFlood.pend(d + 1, b.opposite(dir), other));
+        }
+      }
+    }
+    return powered;
+  }
+  
+  // a tile waiting to be given the given distance through its given wire,
+  // ordered by distance
+  static long pend(int dist, int wire, int tile) {
+    return (long) dist << 38 | (long) wire << 32 | tile;
+  }
+  
+  // puts the given tile and every tile powered through it into cut after its first
+  // size tiles, returning how many tiles cut then holds
+  int collect(PackedBoard b, int tile, int size) {
+    if (size == cut.length) {
+      this.cut = Arrays.copyOf(cut, size * 2);
+    }
+    int from = size;
+    cut[size++] = tile;
+    for (int i = from; i < size; i++) {
+      for (int dir = 1; dir <= b.wireMask; dir <<= 1) {
+        int other = b.neighbor(cut[i], dir);
+        if (other != -1 && b.has(other, PackedBoard.POWERED) 
+            && parent[other] == b.opposite(dir)) {
+          if (size == cut.length) {
+            this.cut = Arrays.copyOf(cut, size * 2);
+          }
+          cut[size++] = other;
+        }
+      }
+    }
+    return size;
+  }
+  
+  // powers the given unpowered tile, and everything it reaches,
+  // if it is connected to a powered tile
+  void reconnect(PackedBoard b, int tile) {
+    if (b.has(tile, PackedBoard.POWERED)) {
+      return;
+    }
+    for (int dir = 1; dir <= b.wireMask; dir <<= 1) {
+      if (b.connected(tile, dir) && b.has(b.neighbor(tile, dir), PackedBoard.POWERED)) {
+        int powered = this.spread(b, tile, dir);
+        this.log(queue, powered);
+        this.count += powered;
+        return;
+      }
+    }
+  }
+  
+  // adds the first count of the given tiles to the tiles the last update changed
+  void log(int[] tiles, int count) {
+    if (changedCount + count > changed.length) {
+      this.changed = Arrays.copyOf(changed, Math.max(changed.length * 2, changedCount + count));
+    }
+    System.arraycopy(tiles, 0, changed, changedCount, count);
+    this.changedCount += count;
+  }
+  
+  // powers the given tile, which was reached through the given wire,
+  // and every unpowered tile connected to it, returning how many tiles it powered
+  int spread(PackedBoard b, int start, int back) {
+    byte[] cells = b.cells;
+    int[] next = b.neighbors();
+    int directions = b.directions;
+    int head = 0;
+    int tail = 0;
+    cells[start] = (byte) (cells[start] | PackedBoard.POWERED);
+    parent[start] = (byte) back;
+    queue[tail++] = start;
+    while (head < tail) {
+      int tile = queue[head++];
+      // visits the tile along each wire, lowest wire first
+      int wires = cells[tile] & b.wireMask;
+      while (wires != 0) {
+        int wire = wires & -wires;
+        wires ^= wire;
+        int other = next != null ? next[tile * directions + Integer.numberOfTrailingZeros(wire)]
+            : b.neighbor(tile, wire);
+        if (other != -1) {
+          tail = this.visit(cells, other, b.opposite(wire), tail);
+        }
+      }
+    }
+    return tail;
+  }
+  
+  // powers and queues the given tile if it has a wire coming back
+  // and isn't already powered, returning the new end of the queue
+  int visit(byte[] cells, int tile, int wire, int tail) {
+    if ((cells[tile] & (wire | PackedBoard.POWERED)) == wire) {
+      cells[tile] = (byte) (cells[tile] | PackedBoard.POWERED);
+      parent[tile] = (byte) wire;
+      queue[tail] = tile;
+      return tail + 1;
+    }
+    return tail;
+  }
+  
+}
@@ -0,0 +1,111 @@
+import java.util.SplittableRandom;
+
+// lays out a board by growing a tree out from a random tile,
+// always adding the lightest randomly weighted edge leading out of it
+class PrimGenerator implements IMazeGenerator {
+  
+  // runs prim's algorithm, weighing each edge when the tree first reaches it
+  // edges waiting to be added are kept in a heap as
+  // weight << 34 | tile the edge leads out of << 2 | which way it leads
+  public GridEdges generate(int width, int height, double bias, SplittableRandom rand) {
+    int n = width * height;
+    GridEdges tree = new GridEdges(Math.max(n - 1, 0));
+    if (n == 0) {
+      return tree;
+    }
+    boolean[] inTree = new boolean[n];
+    LongHeap heap = new LongHeap();
+    int start = rand.nextInt(n);
+    inTree[start] = true;
+    this.addEdges(heap, start, width, height, bias, rand, inTree);
+    while (tree.count < n - 1) {
+      long next = heap.pop();
+      int tile = (int) ((next >>> 2) & 0xFFFFFFFFL);
+      int other = this.neighbor(tile, (int) (next & 3), width);
+      if (!inTree[other]) {
+        inTree[other] = true;
+        tree.add(tile, other, (int) (next >>> 34));
+        this.addEdges(heap, other, width, height, bias, rand, inTree);
+      }
+    }
+    return tree;
+  }
+  
+  // runs prim's algorithm along the board's neighbors, with the edges in the heap as
+  // weight << 34 | tile the edge leads out of << 3 | the wire it leads along
+  public GridEdges generate(PackedBoard b, double bias, SplittableRandom rand) {
+    if (b.topology instanceof SquareGrid) {
+      return this.generate(b.width, b.height, bias, rand);
+    }
+    int n = b.cells.length;
+    GridEdges tree = new GridEdges(Math.max(n - 1, 0));
+    if (n == 0) {
+      return tree;
+    }
+    b.neighbors();
+    boolean[] inTree = new boolean[n];
+    LongHeap heap = new LongHeap();
+    int start = rand.nextInt(n);
+    inTree[start] = true;
+    this.addEdges(heap, b, start, bias, rand, inTree);
+    while (tree.count < n - 1) {
+      long next = heap.pop();
+      int tile = (int) ((next >>> 3) & 0x7FFFFFFFL);
+      int other = b.neighbor(tile, 1 << (int) (next & 7));
+      if (!inTree[other]) {
+        inTree[other] = true;
+        tree.add(tile, other, (int) (next >>> 34));
+        this.addEdges(heap, b, other, bias, rand, inTree);
+      }
+    }
+    return tree;
+  }
+  
+  // weighs the edges from the given tile to every tile not in the tree yet
+  // and adds them to the heap
+  void addEdges(LongHeap heap, int tile, int width, int height, double bias, SplittableRandom rand, 
+      boolean[] inTree) {
+    int row = tile / width;
+    int col = tile % width;
+    for (int way = 0; way < 4; way++) {
+      boolean onBoard = way == 0 ? col < width - 1 
+          : way == 1 ? row < height - 1 
+          : way == 2 ? col > 0 
+          : row > 0;
+      if (onBoard && !inTree[this.neighbor(tile, way, width)]) {
+        int least = GridEdges.leastWeight(bias, way % 2 == 0);
+        long weight = least + rand.nextInt(GridEdges.MAX_WEIGHT - least);
+        heap.push(weight << 34 | (long) tile << 2 | way);
+      }
+    }
+  }
+  
+  // weighs the edges from the given tile of the board to every tile not in the tree yet
+  // and adds them to the heap
+  void addEdges(LongHeap heap, PackedBoard b, int tile, double bias, SplittableRandom rand, 
+      boolean[] inTree) {
+    for (int k = 0; k < b.directions; k++) {
+      int other = b.neighbor(tile, 1 << k);
+      if (other != -1 && !inTree[other]) {
+        int least = GridEdges.leastWeight(bias, other / b.width == tile / b.width);
+        long weight = least + rand.nextInt(GridEdges.MAX_WEIGHT - least);
+        heap.push(weight << 34 | (long) tile << 3 | k);
+      }
+    }
+  }
+  
+  // the tile next to the given one going right, down, left or up (0 to 3)
+  int neighbor(int tile, int way, int width) {
+    if (way == 0) {
+      return tile + 1;
+    }
+    if (way == 1) {
+      return tile + width;
+    }
+    if (way == 2) {
+      return tile - 1;
+    }
+    return tile - width;
+  }
+  
+}
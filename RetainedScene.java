@@ -0,0 +1,95 @@
+import java.util.Arrays;
+import javalib.impworld.*;
+import javalib.worldimages.*;
+
+// remembers the last frame drawn, so a frame where nothing changed costs nothing
+// and a frame where some tiles changed only redraws their rows
+// each row of tiles is kept as one image, and the board as one image of the rows
+class RetainedScene {
+  // the cellsize the rows were drawn at
+  int size;
+  // the image of each row of tiles, and which rows have to be redrawn
+  WorldImage[] rows;
+  boolean[] dirty;
+  boolean anyDirty;
+  // the image of all the rows
+  WorldImage boardImage;
+  // the last frame, and what the buttons and win message showed in it
+  WorldScene last;
+  int clicks;
+  int ticks;
+  int bestScore;
+  boolean won;
+  
+  RetainedScene() {
+    this.size = -1;
+    this.rows = new WorldImage[0];
+    this.dirty = new boolean[0];
+    this.anyDirty = true;
+    this.boardImage = null;
+    this.last = null;
+  }
+  
+  // redraws the given row next frame
+  public void mark(int row) {
+    if (row < dirty.length) {
+      dirty[row] = true;
+    }
+    this.anyDirty = true;
+  }
+  
+  // redraws every row next frame
+  public void markAll() {
+    Arrays.fill(dirty, true);
+    this.anyDirty = true;
+  }
+  
+  // the frame for the given game, reusing as much of the last one as possible
+  public WorldScene scene(LightEmAll game) {
+    int cellsize = game.cellsize;
+    if (size != cellsize || rows.length != game.height) {
+      this.size = cellsize;
+      this.rows = new WorldImage[game.height];
+      this.dirty = new boolean[game.height];
+      this.markAll();
+    }
+    if (anyDirty) {
+      for (int i = 0; i < rows.length; i++) {
+        if (dirty[i]) {
+          rows[i] = this.rowImage(game, i);
+          dirty[i] = false;
+        }
+      }
+      this.boardImage = new AboveImage(rows[0], Arrays.copyOfRange(rows, 1, rows.length));
+      this.anyDirty = false;
+      this.last = null;
+    }
+    boolean isWon = game.endGame();
+    if (last == null || clicks != game.engine.clicks || ticks != game.engine.ticks || won != isWon
+        || bestScore != game.engine.bestScore) {
+      WorldScene world = new WorldScene(cellsize * (game.width + 2), 
+          cellsize * (game.height + 3));
+      game.drawButtons(world);
+      world.placeImageXY(boardImage, cellsize + cellsize * game.width / 2, 
+          2 * cellsize + cellsize * game.height / 2);
+      game.drawWin(world);
+      this.last = world;
+      this.clicks = game.engine.clicks;
+      this.ticks = game.engine.ticks;
+      this.bestScore = game.engine.bestScore;
+      this.won = isWon;
+    }
+    return last;
+  }
+  
+  // the image of the given row of tiles of the given game
+  WorldImage rowImage(LightEmAll game, int row) {
+    WorldImage[] tiles = new WorldImage[game.width];
+    for (int col = 0; col < game.width; col++) {
+      PackedBoard b = game.engine.packed;
+      tiles[col] = game.tileImages.image(b.cells[b.index(row, col)], size);
+    }
+    return new BesideImage(tiles[0], Arrays.copyOfRange(tiles, 1, tiles.length));
+  }
+  
+}
@@ -0,0 +1,46 @@
+// the solutions found for a board, up to a limit
+// solutions are ranked by the guesses that led to them, so that however the search is
+// split between threads, the first solution is the one a search on one thread finds first
+class Solutions {
+  int limit;
+  int count;
+  // the number of counterclockwise turns each tile needs in the first solution,
+  // or null if there is none
+  byte[] turns;
+  // the rank of the first solution, or Long.MAX_VALUE if there is none
+  long rank;
+  // how many times the search had to guess a tile's rotation
+  int guesses;
+  
+  Solutions(int limit) {
+    this.limit = limit;
+    this.count = 0;
+    this.turns = null;
+    this.rank = Long.MAX_VALUE;
+    this.guesses = 0;
+  }
+  
+  // counts a guess
+  public synchronized void guessed() {
+    this.guesses++;
+  }
+  
+  // counts the solution the given state has reached with the given rank,
+  // keeping its turns if it comes before the first solution so far
+  public synchronized void record(SolverState state, long rank) {
+    if (count < limit) {
+      this.count++;
+    }
+    if (rank < this.rank) {
+      this.rank = rank;
+      this.turns = state.turns();
+    }
+  }
+  
+  // whether a search whose solutions have the given rank can stop: enough solutions
+  // have been found, and none it could find would come first
+  public synchronized boolean full(long rank) {
+    return count >= limit && this.rank <= rank;
+  }
+  
+}
@@ -0,0 +1,406 @@
+import java.util.Arrays;
+
+// what is known about a board while solving it: the rotations each tile may still
+// have, which wires are known to connect, and the groups of tiles they connect
+// every change is written to a trail so that a wrong guess can be undone
+class SolverState {
+  // the four wires, in the order they are tried
+  static final int[] WAYS = {PackedBoard.TOP, PackedBoard.LEFT, PackedBoard.BOTTOM, 
+                             PackedBoard.RIGHT};
+  
+  // the wires of each shape turned counterclockwise 0 to 3 times
+  static final int[][] TURNED = turnTable();
+  // for each shape, one bit for each number of turns that gives a different tile
+  static final int[] DISTINCT = distinctTable();
+  // for each shape and set of allowed turns, the wires some or every turn has
+  static final int[][] MAY = wireTable(false);
+  static final int[][] MUST = wireTable(true);
+  
+  // the arrays the trail can undo writes to
+  static final int OPTIONS = 0;
+  static final int JOINED = 1;
+  static final int PARENT = 2;
+  static final int SIZE = 3;
+  static final int LOOSE = 4;
+  
+  // the board being solved, only used for its shape
+  PackedBoard board;
+  // the wires each tile started with
+  byte[] shape;
+  // one bit for each number of turns each tile may still need
+  byte[] options;
+  // the wires of each tile known to connect to its neighbor
+  byte[] joined;
+  // a union-find over the tiles joined by known connections, without path compression
+  // so that it can be undone, and for each root the size of its group and how many
+  // wires of its tiles still have to connect outside it
+  int[] parent;
+  int[] size;
+  int[] loose;
+  // the writes since the search started, as which array, index and old value
+  int[] trail;
+  int trailSize;
+  // the tiles to look at again, and whether each is waiting to be
+  int[] work;
+  int workSize;
+  boolean[] waiting;
+  
+  // starts solving the given board, with every tile waiting to be looked at
+  SolverState(PackedBoard b) {
+    int n = b.cells.length;
+    this.board = b;
+    this.shape = new byte[n];
+    this.options = new byte[n];
+    this.joined = new byte[n];
+    this.parent = new int[n];
+    this.size = new int[n];
+    this.loose = new int[n];
+    this.trail = new int[48];
+    this.trailSize = 0;
+    this.work = new int[n];
+    this.workSize = 0;
+    this.waiting = new boolean[n];
+    for (int tile = 0; tile < n; tile++) {
+      int wires = b.wires(tile);
+      shape[tile] = (byte) wires;
+      options[tile] = (byte) DISTINCT[wires];
+      parent[tile] = tile;
+      size[tile] = 1;
+      loose[tile] = Integer.bitCount(wires);
+      this.await(tile);
+    }
+  }
+  
+  // copies the given state, which must not have any tiles waiting
+  SolverState(SolverState other) {
+    this.board = other.board;
+    this.shape = other.shape;
+    this.options = other.options.clone();
+    this.joined = other.joined.clone();
+    this.parent = other.parent.clone();
+    this.size = other.size.clone();
+    this.loose = other.loose.clone();
+    this.trail = new int[48];
+    this.trailSize = 0;
+    this.work = new int[shape.length];
+    this.workSize = 0;
+    this.waiting = new boolean[shape.length];
+  }
+  
+  // the wires of every shape turned 0 to 3 times
+  static int[][] turnTable() {
+    int[][] table = new int[16][4];
+    for (int wires = 0; wires < 16; wires++) {
+      int turned = wires;
+      for (int turns = 0; turns < 4; turns++) {
+        table[wires][turns] = turned;
+        turned = ((turned << 1) | (turned >> 3)) & PackedBoard.WIRES;
+      }
+    }
+    return table;
+  }
+  
+  // the fewest turns giving each different tile of every shape,
+  // so a straight wire has two and a cross has one
+  static int[] distinctTable() {
+    int[][] turned = turnTable();
+    int[] table = new int[16];
+    for (int wires = 0; wires < 16; wires++) {
+      for (int turns = 0; turns < 4; turns++) {
+        boolean seen = false;
+        for (int fewer = 0; fewer < turns; fewer++) {
+          seen = seen || turned[wires][fewer] == turned[wires][turns];
+        }
+        if (!seen) {
+          table[wires] |= 1 << turns;
+        }
+      }
+    }
+    return table;
+  }
+  
+  // the wires some, or if every is true every, allowed turn of each shape has
+  static int[][] wireTable(boolean every) {
+    int[][] turned = turnTable();
+    int[][] table = new int[16][16];
+    for (int wires = 0; wires < 16; wires++) {
+      for (int allowed = 0; allowed < 16; allowed++) {
+        int result = every ? PackedBoard.WIRES : 0;
+        for (int turns = 0; turns < 4; turns++) {
+          if ((allowed & (1 << turns)) != 0) {
+            result = every ? result & turned[wires][turns] : result | turned[wires][turns];
+          }
+        }
+        table[wires][allowed] = allowed == 0 ? 0 : result;
+      }
+    }
+    return table;
+  }
+  
+  // whether the board has as many wires as a spanning tree of its tiles:
+  // one connection, so two wires, for every tile but one
+  public boolean possible() {
+    int wires = 0;
+    for (int tile = 0; tile < shape.length; tile++) {
+      wires += Integer.bitCount(shape[tile]);
+    }
+    return wires == 2 * (shape.length - 1);
+  }
+  
+  // the number of counterclockwise turns each tile needs, once every tile has one option
+  public byte[] turns() {
+    byte[] turns = new byte[options.length];
+    for (int tile = 0; tile < options.length; tile++) {
+      turns[tile] = (byte) Integer.numberOfTrailingZeros(options[tile]);
+    }
+    return turns;
+  }
+  
+  // an undecided tile with the fewest options left, or -1 if every tile is decided
+  public int choose() {
+    int best = -1;
+    int fewest = 5;
+    for (int tile = 0; tile < options.length && fewest > 2; tile++) {
+      int count = Integer.bitCount(options[tile]);
+      if (count > 1 && count < fewest) {
+        best = tile;
+        fewest = count;
+      }
+    }
+    return best;
+  }
+  
+  // decides that the given tile needs the given number of turns and works out
+  // what follows, returning false if that cannot lead to a solution
+  public boolean fix(int tile, int turns) {
+    this.write(OPTIONS, tile, 1 << turns);
+    this.awaitNeighbors(tile);
+    this.await(tile);
+    return this.propagate();
+  }
+  
+  // looks at waiting tiles until none are left, returning false if some tile
+  // turns out to have no options
+  public boolean propagate() {
+    while (workSize > 0) {
+      int tile = work[--workSize];
+      waiting[tile] = false;
+      if (!this.revise(tile)) {
+        while (workSize > 0) {
+          waiting[work[--workSize]] = false;
+        }
+        return false;
+      }
+    }
+    return true;
+  }
+  
+  // works out what follows like propagate, but in waves: first every waiting tile,
+  // then every tile the first wave made wait, and so on
+  // returns how many waves it took, or -1 if some tile turns out to have no options
+  public int propagateWaves() {
+    int[] wave = new int[work.length];
+    int waves = 0;
+    while (workSize > 0) {
+      int size = workSize;
+      System.arraycopy(work, 0, wave, 0, size);
+      this.workSize = 0;
+      for (int i = 0; i < size; i++) {
+        waiting[wave[i]] = false;
+      }
+      for (int i = 0; i < size; i++) {
+        if (!this.revise(wave[i])) {
+          while (workSize > 0) {
+            waiting[work[--workSize]] = false;
+          }
+          return -1;
+        }
+      }
+      waves++;
+    }
+    return waves;
+  }
+  
+  // the number of tiles with only one option left
+  public int decided() {
+    int count = 0;
+    for (int tile = 0; tile < options.length; tile++) {
+      if (Integer.bitCount(options[tile]) == 1) {
+        count++;
+      }
+    }
+    return count;
+  }
+  
+  // drops the options of the given tile its neighbors and the border rule out,
+  // and joins it to the neighbors it has to connect to,
+  // returning false if that leaves no options or closes a loop
+  boolean revise(int tile) {
+    int must = 0;
+    int mustNot = 0;
+    for (int way : WAYS) {
+      int other = board.neighbor(tile, way);
+      if (other == -1) {
+        mustNot |= way;
+        continue;
+      }
+      int back = board.opposite(way);
+      if ((MUST[shape[other]][options[other]] & back) != 0) {
+        // the neighbor connects here, which closes a loop if they are already in one group
+        if ((joined[tile] & way) == 0 && this.find(tile) == this.find(other)) {
+          return false;
+        }
+        must |= way;
+      }
+      else if ((MAY[shape[other]][options[other]] & back) == 0) {
+        mustNot |= way;
+      }
+    }
+    int allowed = 0;
+    for (int turns = 0; turns < 4; turns++) {
+      int wires = TURNED[shape[tile]][turns];
+      if ((options[tile] & (1 << turns)) != 0 && (wires & must) == must 
+          && (wires & mustNot) == 0) {
+        allowed |= 1 << turns;
+      }
+    }
+    if (allowed == 0) {
+      return false;
+    }
+    if (allowed != options[tile]) {
+      this.write(OPTIONS, tile, allowed);
+      this.awaitNeighbors(tile);
+    }
+    int connects = MUST[shape[tile]][allowed] & must & ~joined[tile];
+    for (int way : WAYS) {
+      if ((connects & way) != 0 && !this.join(tile, way)) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
+  // records that the given tile connects to its neighbor along the given wire,
+  // returning false if that closes a loop or leaves a group no way to connect to the rest
+  boolean join(int tile, int way) {
+    int other = board.neighbor(tile, way);
+    this.write(JOINED, tile, joined[tile] | way);
+    this.write(JOINED, other, joined[other] | board.opposite(way));
+    int root = this.find(tile);
+    int otherRoot = this.find(other);
+    if (root == otherRoot) {
+      return false;
+    }
+    if (size[root] < size[otherRoot]) {
+      int swap = root;
+      root = otherRoot;
+      otherRoot = swap;
+    }
+    this.write(PARENT, otherRoot, root);
+    this.write(SIZE, root, size[root] + size[otherRoot]);
+    this.write(LOOSE, root, loose[root] + loose[otherRoot] - 2);
+    return loose[root] > 0 || size[root] == shape.length;
+  }
+  
+  // the root of the group of the given tile
+  int find(int tile) {
+    while (parent[tile] != tile) {
+      tile = parent[tile];
+    }
+    return tile;
+  }
+  
+  // looks at the given tile again
+  void await(int tile) {
+    if (!waiting[tile]) {
+      waiting[tile] = true;
+      work[workSize++] = tile;
+    }
+  }
+  
+  // looks at the neighbors of the given tile again
+  void awaitNeighbors(int tile) {
+    for (int way : WAYS) {
+      int other = board.neighbor(tile, way);
+      if (other != -1) {
+        this.await(other);
+      }
+    }
+  }
+  
+  // sets the given index of the given array, remembering the old value
+  void write(int array, int index, int value) {
+    if (trailSize + 3 > trail.length) {
+      this.trail = Arrays.copyOf(trail, trail.length * 2);
+    }
+    trail[trailSize++] = array;
+    trail[trailSize++] = index;
+    trail[trailSize++] = this.set(array, index, value);
+  }
+  
+  // sets the given index of the given array, returning its old value
+  int set(int array, int index, int value) {
+    int old;
+    if (array == OPTIONS) {
+      old = options[index];
+      options[index] = (byte) value;
+    }
+    else if (array == JOINED) {
+      old = joined[index];
+      joined[index] = (byte) value;
+    }
+    else if (array == PARENT) {
+      old = parent[index];
+      parent[index] = value;
+    }
+    else if (array == SIZE) {
+      old = size[index];
+      size[index] = value;
+    }
+    else {
+      old = loose[index];
+      loose[index] = value;
+    }
+    return old;
+  }
+  
+  // how far the trail has got, to undo back to later
+  public int mark() {
+    return trailSize;
+  }
+  
+  // undoes every write since the given mark
+  public void undo(int mark) {
+    while (trailSize > mark) {
+      int old = trail[--trailSize];
+      int index = trail[--trailSize];
+      int array = trail[--trailSize];
+      this.set(array, index, old);
+    }
+  }
+  
+  // tries every option of an undecided tile in turn, recording each solution reached
+  // with the given rank, until there are no more or enough have been found
+  public void search(Solutions found, long rank) {
+    if (found.full(rank)) {
+      return;
+    }
+    int tile = this.choose();
+    if (tile == -1) {
+      found.record(this, rank);
+      return;
+    }
+    found.guessed();
+    int allowed = options[tile];
+    for (int turns = 0; turns < 4; turns++) {
+      if ((allowed & (1 << turns)) != 0) {
+        int mark = this.mark();
+        if (this.fix(tile, turns)) {
+          this.search(found, rank);
+        }
+        this.undo(mark);
+      }
+    }
+  }
+  
+}
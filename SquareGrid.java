@@ -0,0 +1,25 @@
+// tiles in rows and columns, with wires to the top, left, bottom and right
+class SquareGrid implements ITopology {
+  // how each wire moves along rows and columns
+  static final int[] ROW_STEPS = {-1, 0, 1, 0};
+  static final int[] COL_STEPS = {0, -1, 0, 1};
+  
+  public int directions() {
+    return 4;
+  }
+  
+  public int step(int width, int height, int row, int col, int k) {
+    int r = row + ROW_STEPS[k];
+    int c = col + COL_STEPS[k];
+    return r < 0 || r >= height || c < 0 || c >= width ? -1 : r * width + c;
+  }
+  
+  public boolean fits(int width, int height) {
+    return width >= 0 && height >= 0;
+  }
+  
+  public String name() {
+    return "square grid";
+  }
+  
+}
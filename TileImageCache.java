@@ -0,0 +1,38 @@
+import java.util.Arrays;
+import java.awt.Color;
+import javalib.worldimages.*;
+
+// remembers the image of every kind of tile, so drawing a board doesn't build
+// new images every frame: there are only 16 sets of wires, each of which
+// can be powered or not and have the power station or not
+class TileImageCache {
+  // the size the images were drawn at
+  int size;
+  // the images, by the wire, station and powered bits of a packed tile
+  WorldImage[] images;
+  
+  TileImageCache() {
+    this.size = -1;
+    this.images = new WorldImage[PackedBoard.WIRES + PackedBoard.STATION 
+        + PackedBoard.POWERED + 1];
+  }
+  
+  // the image of a packed tile at the given size, drawn the first time it's asked for
+  // and whenever the size changes
+  public WorldImage image(int cell, int size) {
+    if (size != this.size) {
+      Arrays.fill(images, null);
+      this.size = size;
+    }
+    int kind = cell & (PackedBoard.WIRES | PackedBoard.STATION | PackedBoard.POWERED);
+    if (images[kind] == null) {
+      GamePiece gp = new GamePiece((kind & PackedBoard.LEFT) != 0, 
+          (kind & PackedBoard.RIGHT) != 0, (kind & PackedBoard.TOP) != 0, 
+          (kind & PackedBoard.BOTTOM) != 0, 0, 0, (kind & PackedBoard.STATION) != 0);
+      Color wireColor = (kind & PackedBoard.POWERED) != 0 ? Color.yellow : Color.gray;
+      images[kind] = gp.tileImage(size, size / 5, wireColor, false);
+    }
+    return images[kind];
+  }
+  
+}
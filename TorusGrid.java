@@ -0,0 +1,25 @@
+// a square grid whose edges wrap around, so the leftmost column is next to the rightmost
+// and the top row is next to the bottom one
+// it needs at least three rows and columns, or tiles would be next to themselves
+// or next to each other twice
+class TorusGrid implements ITopology {
+  
+  public int directions() {
+    return 4;
+  }
+  
+  public int step(int width, int height, int row, int col, int k) {
+    int r = (row + SquareGrid.ROW_STEPS[k] + height) % height;
+    int c = (col + SquareGrid.COL_STEPS[k] + width) % width;
+    return r * width + c;
+  }
+  
+  public boolean fits(int width, int height) {
+    return width >= 3 && height >= 3;
+  }
+  
+  public String name() {
+    return "torus";
+  }
+  
+}
@@ -0,0 +1,118 @@
+import java.util.SplittableRandom;
+
+// lays out a board as a loop-erased random walk tree (wilson's algorithm):
+// with no bias every spanning tree of the grid is equally likely
+class WilsonGenerator implements IMazeGenerator {
+  // the least weight a step may have, so that at a bias of -1 or 1 the walk can still
+  // step the other way and reach every tile
+  static final double LEAST_WEIGHT = 1.0 / 64;
+  
+  // walks randomly from each tile not in the tree yet until it hits the tree,
+  // then adds the walk with its loops erased
+  public GridEdges generate(int width, int height, double bias, SplittableRandom rand) {
+    return this.generate(null, width, height, bias, rand);
+  }
+  
+  // walks randomly along the board's neighbors, as above
+  public GridEdges generate(PackedBoard b, double bias, SplittableRandom rand) {
+    if (b.topology instanceof SquareGrid) {
+      return this.generate(b.width, b.height, bias, rand);
+    }
+    b.neighbors();
+    return this.generate(b, b.width, b.height, bias, rand);
+  }
+  
+  // walks randomly over the given board, or over a width by height square grid if it is null
+  GridEdges generate(PackedBoard b, int width, int height, double bias, 
+      SplittableRandom rand) {
+    int n = width * height;
+    GridEdges tree = new GridEdges(Math.max(n - 1, 0));
+    if (n == 0) {
+      return tree;
+    }
+    boolean[] inTree = new boolean[n];
+    // the last step the walk took out of each tile; overwriting it is what erases loops
+    int[] next = new int[n];
+    // the tiles the walk could step to next, reused by every step
+    int[] options = new int[b == null ? 4 : b.directions];
+    inTree[rand.nextInt(n)] = true;
+    for (int start = 0; start < n; start++) {
+      int tile = start;
+      while (!inTree[tile]) {
+        next[tile] = b == null ? this.step(tile, width, height, bias, rand, options)
+            : this.step(b, tile, bias, rand, options);
+        tile = next[tile];
+      }
+      tile = start;
+      while (!inTree[tile]) {
+        inTree[tile] = true;
+        tree.add(tile, next[tile], 0);
+        tile = next[tile];
+      }
+    }
+    return tree;
+  }
+  
+  // a random tile next to the given one, where each horizontal neighbor is
+  // (1 + bias) / (1 - bias) times as likely as each vertical one, see weight
+  // options has room for four tiles, and is overwritten with the tiles it could step to
+  int step(int tile, int width, int height, double bias, SplittableRandom rand, 
+      int[] options) {
+    int row = tile / width;
+    int col = tile % width;
+    options[0] = col < width - 1 ? tile + 1 : -1;
+    options[1] = col > 0 ? tile - 1 : -1;
+    options[2] = row < height - 1 ? tile + width : -1;
+    options[3] = row > 0 ? tile - width : -1;
+    double total = 0;
+    for (int i = 0; i < 4; i++) {
+      if (options[i] != -1) {
+        total += this.weight(bias, i < 2);
+      }
+    }
+    double pick = rand.nextDouble() * total;
+    int last = -1;
+    for (int i = 0; i < 4; i++) {
+      if (options[i] != -1) {
+        last = options[i];
+        pick -= this.weight(bias, i < 2);
+        if (pick < 0) {
+          return last;
+        }
+      }
+    }
+    return last;
+  }
+  
+  // a random tile next to the given one along the board's wires, weighed as above,
+  // where a step within a row is horizontal
+  // options has room for a tile per wire, and is overwritten with the tiles it could step to
+  int step(PackedBoard b, int tile, double bias, SplittableRandom rand, int[] options) {
+    int row = tile / b.width;
+    double total = 0;
+    for (int k = 0; k < b.directions; k++) {
+      options[k] = b.neighbor(tile, 1 << k);
+      if (options[k] != -1) {
+        total += this.weight(bias, options[k] / b.width == row);
+      }
+    }
+    double pick = rand.nextDouble() * total;
+    int last = -1;
+    for (int k = 0; k < b.directions; k++) {
+      if (options[k] != -1) {
+        last = options[k];
+        pick -= this.weight(bias, options[k] / b.width == row);
+        if (pick < 0) {
+          return last;
+        }
+      }
+    }
+    return last;
+  }
+  
+  // how likely a step going the given way is with the given bias, never below LEAST_WEIGHT
+  double weight(double bias, boolean horizontal) {
+    return Math.max(horizontal ? 1 + bias : 1 - bias, LEAST_WEIGHT);
+  }
+  
+}